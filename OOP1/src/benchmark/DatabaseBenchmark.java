@@ -0,0 +1,408 @@
+package benchmark;
+
+import actor.ActorsAwards;
+import common.Constants;
+import database.Command;
+import database.Database;
+import entertainment.Season;
+import entities.Show;
+import fileio.ActionInputData;
+import fileio.ActorInputData;
+import fileio.Input;
+import fileio.MovieInputData;
+import fileio.SerialInputData;
+import fileio.UserInputData;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Measures the average time taken by every operation of the database on synthetic
+ * catalogs of increasing size
+ * <p>
+ * Usage: DatabaseBenchmark [sizes separated by commas] [iterations per operation]
+ * <p>
+ * Catalogs of millions of videos and users, up to 10000000, are not measured by default
+ * since they need a heap of several gigabytes; they can be given as sizes when it allows
+ */
+public final class DatabaseBenchmark {
+    /**
+     * Numbers of videos and users in the catalogs measured by default
+     */
+    private static final String DEFAULT_SIZES = "1000,10000,100000";
+    /**
+     * Number of times each operation is measured by default
+     */
+    private static final int DEFAULT_ITERATIONS = 1000;
+    /**
+     * Number of catalog conversions measured for every thousand operations
+     */
+    private static final int CONVERSIONS_PER_THOUSAND = 5;
+    /**
+     * One thousand
+     */
+    private static final int THOUSAND = 1000;
+    /**
+     * Number of different actions each operation cycles through
+     */
+    private static final int NUM_ACTIONS = 256;
+    /**
+     * Number of videos for every actor in catalog
+     */
+    private static final int VIDEOS_PER_ACTOR = 10;
+    /**
+     * Maximum number of actors in the cast of a video
+     */
+    private static final int CAST_SIZE = 5;
+    /**
+     * Maximum number of genres of a video
+     */
+    private static final int GENRES_SIZE = 3;
+    /**
+     * First release year of videos
+     */
+    private static final int FIRST_YEAR = 2000;
+    /**
+     * Number of different release years of videos
+     */
+    private static final int NUM_YEARS = 20;
+    /**
+     * Shortest duration of a movie or season
+     */
+    private static final int MIN_DURATION = 20;
+    /**
+     * Range of durations of movies and seasons
+     */
+    private static final int DURATION_RANGE = 160;
+    /**
+     * Maximum number of seasons of a show
+     */
+    private static final int MAX_SEASONS = 4;
+    /**
+     * Maximum number of videos in the history of a user
+     */
+    private static final int HISTORY_SIZE = 10;
+    /**
+     * Maximum number of views of a video in the history of a user
+     */
+    private static final int MAX_VIEWS = 4;
+    /**
+     * Number of words in the description of an actor
+     */
+    private static final int DESCRIPTION_SIZE = 30;
+    /**
+     * Maximum number of awards of a kind earned by an actor
+     */
+    private static final int MAX_AWARDS = 5;
+    /**
+     * Highest grade given by a rating
+     */
+    private static final int MAX_GRADE = 10;
+    /**
+     * Number of results asked for by queries
+     */
+    private static final int QUERY_SIZE = 10;
+    /**
+     * Genres as given in input
+     */
+    static final String[] GENRES = {"Action", "Adventure", "Drama", "Comedy", "Crime",
+        "Romance", "War", "History", "Thriller", "Mystery", "Family", "Horror", "Fantasy",
+        "Science Fiction", "Action & Adventure", "Sci-Fi & Fantasy", "Animation", "Kids",
+        "Western", "TV Movie"};
+    /**
+     * Awards as given in input
+     */
+    static final String[] AWARDS = {"BEST_PERFORMANCE", "BEST_DIRECTOR",
+        "PEOPLE_CHOICE_AWARD", "BEST_SUPPORTING_ACTOR", "BEST_SCREENPLAY"};
+    /**
+     * Words actors' descriptions are made of
+     */
+    static final String[] WORDS = {"actor", "actress", "american", "born", "film",
+        "television", "award", "role", "known", "series", "director", "stage", "drama",
+        "comedy", "producer", "star", "career", "british", "golden", "academy"};
+    /**
+     * Sum of lengths of results, so that operations are not optimized away
+     */
+    private static long sink;
+
+    /**
+     * for coding style
+     */
+    private DatabaseBenchmark() {
+    }
+
+    /**
+     * Runs all benchmarks for all catalog sizes
+     * @param args catalog sizes and number of iterations
+     * @throws IOException in case of exceptions to writing / reading snapshots
+     */
+    public static void main(final String[] args) throws IOException {
+        String sizes = DEFAULT_SIZES;
+        int iterations = DEFAULT_ITERATIONS;
+        if (args.length > 0) {
+            sizes = args[0];
+        }
+        if (args.length > 1) {
+            iterations = Integer.parseInt(args[1]);
+        }
+        for (String size : sizes.split(",")) {
+            run(Integer.parseInt(size.trim()), iterations);
+        }
+        System.out.println("# checksum " + sink);
+    }
+
+    private static void run(final int size, final int iterations) throws IOException {
+        Random random = new Random(size);
+        Input input = createInput(size, random);
+        Database database = new Database();
+        // Measure conversion of input, which is much slower than any other operation
+        int conversions = Math.max(1, iterations * CONVERSIONS_PER_THOUSAND / THOUSAND);
+        measure(size, "convertInput", conversions, () -> database.processInput(input));
+        database.processInput(input);
+        // Measure saving the converted catalog to a snapshot and loading it back instead
+        File snapshot = File.createTempFile("database", ".snapshot");
+        snapshot.deleteOnExit();
+        measure(size, "saveSnapshot", conversions, saving(database, snapshot.getPath()));
+        measure(size, "loadSnapshot", conversions, loading(new Database(), snapshot.getPath()));
+        Files.delete(snapshot.toPath());
+        // Measure read-only operations first so that they all see the same state
+        measure(size, iterations, "queryAverageActors",
+                queries(database, random, "actors", "average"), database::queryAverageActors);
+        measure(size, iterations, "queryAwardsActors",
+                queries(database, random, "actors", "awards"), database::queryAwardsActors);
+        measure(size, iterations, "queryDescriptionActors",
+                queries(database, random, "actors", "filter_description"),
+                database::queryDescriptionActors);
+        measure(size, iterations, "queryRatingVideo",
+                queries(database, random, null, "ratings"), database::queryRatingVideo);
+        measure(size, iterations, "queryFavoriteVideo",
+                queries(database, random, null, "favorite"), database::queryFavoriteVideo);
+        measure(size, iterations, "queryLongestVideo",
+                queries(database, random, null, "longest"), database::queryLongestVideo);
+        measure(size, iterations, "queryMostViewedVideo",
+                queries(database, random, null, "most_viewed"), database::queryMostViewedVideo);
+        measure(size, iterations, "queryUsers",
+                queries(database, random, "users", "num_ratings"), database::queryUsers);
+        measure(size, iterations, "recommendStandard",
+                recommendations(database, random, "standard"), database::recommendStandard);
+        measure(size, iterations, "recommendBestUnseen",
+                recommendations(database, random, "best_unseen"), database::recommendBestUnseen);
+        measure(size, iterations, "recommendPopular",
+                recommendations(database, random, "popular"), database::recommendPopular);
+        measure(size, iterations, "recommendFavorite",
+                recommendations(database, random, "favorite"), database::recommendFavorite);
+        measure(size, iterations, "recommendSearch",
+                recommendations(database, random, "search"), database::recommendSearch);
+        // Measure commands last since they change the state
+        measure(size, iterations, "userRateVideo",
+                seenCommands(database, random, "rating", 2 * iterations),
+                database::userRateVideo);
+        measure(size, iterations, "userFavoriteVideo",
+                seenCommands(database, random, "favorite", 2 * iterations),
+                database::userFavoriteVideo);
+        measure(size, iterations, "userViewVideo",
+                commands(database, random, "view"), database::userViewVideo);
+    }
+
+    private static void measure(final int size, final String name, final int iterations,
+                                final Runnable operation) {
+        // Warm up before measuring
+        for (int i = 0; i < iterations; ++i) {
+            operation.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; ++i) {
+            operation.run();
+        }
+        report(size, name, (double) (System.nanoTime() - start) / iterations);
+    }
+
+    private static void measure(final int size, final int iterations, final String name,
+                                final List<Command> commands,
+                                final Function<Command, String> operation) {
+        // Warm up before measuring, measuring then goes on with the commands after those used
+        // for warming up, so that commands built once each are not repeated
+        for (int i = 0; i < iterations; ++i) {
+            sink += operation.apply(commands.get(i % commands.size())).length();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; ++i) {
+            sink += operation.apply(commands.get((iterations + i) % commands.size())).length();
+        }
+        report(size, name, (double) (System.nanoTime() - start) / iterations);
+    }
+
+    private static Runnable saving(final Database database, final String path) {
+        return () -> {
+            try {
+                database.saveSnapshot(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private static Runnable loading(final Database database, final String path) {
+        return () -> {
+            try {
+                database.loadSnapshot(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private static void report(final int size, final String name, final double nanos) {
+        System.out.printf("%-24s %10d %16.1f ns/op%n", name, size, nanos);
+    }
+
+    private static List<Command> queries(final Database database, final Random random,
+                                         final String objectType, final String criteria) {
+        List<ActionInputData> actions = new ArrayList<>();
+        for (int i = 0; i < NUM_ACTIONS; ++i) {
+            String sortType = random.nextBoolean() ? "asc" : "desc";
+            String type = objectType;
+            String year = null;
+            String genre = null;
+            List<String> words = new ArrayList<>();
+            List<String> awards = new ArrayList<>();
+            // Video queries are given random filters
+            if (type == null) {
+                type = random.nextBoolean() ? Constants.MOVIES : Constants.SHOWS;
+                if (random.nextBoolean()) {
+                    year = String.valueOf(FIRST_YEAR + random.nextInt(NUM_YEARS));
+                }
+                if (random.nextBoolean()) {
+                    genre = GENRES[random.nextInt(GENRES.length)];
+                }
+            }
+            words.add(WORDS[random.nextInt(WORDS.length)]);
+            awards.add(AWARDS[random.nextInt(AWARDS.length)]);
+            actions.add(new ActionInputData(i + 1, Constants.QUERY, type, genre, sortType,
+                                            criteria, year, QUERY_SIZE, words, awards));
+        }
+        return database.compile(actions);
+    }
+
+    private static List<Command> recommendations(final Database database, final Random random,
+                                                 final String type) {
+        List<ActionInputData> actions = new ArrayList<>();
+        for (int i = 0; i < NUM_ACTIONS; ++i) {
+            String username = "user" + random.nextInt(database.getUsersMap().size());
+            actions.add(new ActionInputData(i + 1, Constants.RECOMMENDATION, type, username,
+                                            GENRES[random.nextInt(GENRES.length)]));
+        }
+        return database.compile(actions);
+    }
+
+    private static List<Command> commands(final Database database, final Random random,
+                                          final String type) {
+        List<ActionInputData> actions = new ArrayList<>();
+        for (int i = 0; i < NUM_ACTIONS; ++i) {
+            String username = "user" + random.nextInt(database.getUsersMap().size());
+            int video = random.nextInt(database.getVideosMap().size());
+            actions.add(new ActionInputData(i + 1, Constants.COMMAND, type, username,
+                                            "video" + video, 0.0, 0));
+        }
+        return database.compile(actions);
+    }
+
+    private static List<Command> seenCommands(final Database database, final Random random,
+                                              final String type, final int count) {
+        // Pair users with videos from their own history, so that the commands are accepted,
+        // leaving out videos the users have already added to favorites
+        List<String[]> pairs = new ArrayList<>();
+        for (UserInputData user : database.getInput().getUsers()) {
+            for (String title : user.getHistory().keySet()) {
+                if (type.equals("favorite") && user.getFavoriteMovies().contains(title)) {
+                    continue;
+                }
+                pairs.add(new String[] {user.getUsername(), title});
+            }
+        }
+        // Each pair is used once, for warming up or for measuring, while there are enough
+        Collections.shuffle(pairs, random);
+        List<ActionInputData> actions = new ArrayList<>();
+        for (int i = 0; i < Math.min(count, pairs.size()); ++i) {
+            String username = pairs.get(i)[0];
+            String title = pairs.get(i)[1];
+            // Seasons are only given when rating shows
+            int season = database.getVideosMap().get(title) instanceof Show ? 1 : 0;
+            actions.add(new ActionInputData(i + 1, Constants.COMMAND, type, username, title,
+                                            (double) (1 + random.nextInt(MAX_GRADE)), season));
+        }
+        return database.compile(actions);
+    }
+
+    private static Input createInput(final int size, final Random random) {
+        int numMovies = size / 2;
+        int numActors = Math.max(1, size / VIDEOS_PER_ACTOR);
+        // Create movies first and shows after them, with random casts and genres
+        List<MovieInputData> movies = new ArrayList<>();
+        List<SerialInputData> serials = new ArrayList<>();
+        for (int i = 0; i < size; ++i) {
+            ArrayList<String> cast = new ArrayList<>();
+            for (int j = random.nextInt(CAST_SIZE + 1); j > 0; --j) {
+                cast.add("actor" + random.nextInt(numActors));
+            }
+            ArrayList<String> genres = new ArrayList<>();
+            for (int j = 1 + random.nextInt(GENRES_SIZE); j > 0; --j) {
+                genres.add(GENRES[random.nextInt(GENRES.length)]);
+            }
+            int year = FIRST_YEAR + random.nextInt(NUM_YEARS);
+            if (i < numMovies) {
+                movies.add(new MovieInputData("video" + i, cast, genres, year,
+                        MIN_DURATION + random.nextInt(DURATION_RANGE)));
+            } else {
+                ArrayList<Season> seasons = new ArrayList<>();
+                int numSeasons = 1 + random.nextInt(MAX_SEASONS);
+                for (int j = 1; j <= numSeasons; ++j) {
+                    seasons.add(new Season(j, MIN_DURATION + random.nextInt(DURATION_RANGE)));
+                }
+                serials.add(new SerialInputData("video" + i, cast, genres, numSeasons, seasons,
+                                                year));
+            }
+        }
+        // Create users with random histories, favoring some of the videos they have seen
+        List<UserInputData> users = new ArrayList<>();
+        for (int i = 0; i < size; ++i) {
+            Map<String, Integer> history = new HashMap<>();
+            ArrayList<String> favorites = new ArrayList<>();
+            for (int j = random.nextInt(HISTORY_SIZE + 1); j > 0; --j) {
+                String title = "video" + random.nextInt(size);
+                history.put(title, 1 + random.nextInt(MAX_VIEWS));
+                if (random.nextBoolean()) {
+                    favorites.add(title);
+                }
+            }
+            users.add(new UserInputData("user" + i, random.nextBoolean() ? "PREMIUM" : "BASIC",
+                                        history, favorites));
+        }
+        // Create actors with random descriptions and awards
+        List<ActorInputData> actors = new ArrayList<>();
+        for (int i = 0; i < numActors; ++i) {
+            StringBuilder description = new StringBuilder();
+            for (int j = 0; j < DESCRIPTION_SIZE; ++j) {
+                description.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            Map<ActorsAwards, Integer> awards = new HashMap<>();
+            for (ActorsAwards award : ActorsAwards.values()) {
+                if (award != ActorsAwards.NONE && random.nextBoolean()) {
+                    awards.put(award, 1 + random.nextInt(MAX_AWARDS));
+                }
+            }
+            actors.add(new ActorInputData("actor" + i, description.toString(), new ArrayList<>(),
+                                          awards));
+        }
+        return new Input(actors, users, new ArrayList<>(), movies, serials);
+    }
+}
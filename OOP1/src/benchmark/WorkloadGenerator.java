@@ -0,0 +1,530 @@
+package benchmark;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import common.Constants;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Writes synthetic input files in the format read by InputLoader, with configurable numbers
+ * of actors, movies, serials, users and actions; videos, users and actors are picked
+ * following a Zipf distribution, so that a few of them are far more popular than the rest
+ * <p>
+ * Usage: WorkloadGenerator output=file [actors=n] [movies=n] [serials=n] [users=n]
+ * [actions=n] [skew=exponent] [commands=share] [queries=share] [seed=n], the rest of the
+ * actions being recommendations
+ */
+public final class WorkloadGenerator {
+    /**
+     * Size of the buffer the output file is written through
+     */
+    private static final int BUFFER_SIZE = 65536;
+    /**
+     * Default number of actors
+     */
+    private static final String DEFAULT_ACTORS = "10000";
+    /**
+     * Default number of movies and of serials
+     */
+    private static final String DEFAULT_VIDEOS = "2000";
+    /**
+     * Default number of users
+     */
+    private static final String DEFAULT_USERS = "2000";
+    /**
+     * Default number of actions
+     */
+    private static final String DEFAULT_ACTIONS = "10000";
+    /**
+     * Default exponent of Zipf distributions
+     */
+    private static final String DEFAULT_SKEW = "1.0";
+    /**
+     * Default share of commands among actions
+     */
+    private static final String DEFAULT_COMMANDS = "0.5";
+    /**
+     * Default share of queries among actions
+     */
+    private static final String DEFAULT_QUERIES = "0.3";
+    /**
+     * Default seed of random numbers
+     */
+    private static final String DEFAULT_SEED = "0";
+    /**
+     * Maximum number of actors in the cast of a video
+     */
+    private static final int CAST_SIZE = 6;
+    /**
+     * Maximum number of videos in the filmography of an actor
+     */
+    private static final int FILMOGRAPHY_SIZE = 4;
+    /**
+     * Maximum number of genres of a video
+     */
+    private static final int GENRES_SIZE = 3;
+    /**
+     * First release year of videos
+     */
+    private static final int FIRST_YEAR = 1990;
+    /**
+     * Number of different release years of videos
+     */
+    private static final int NUM_YEARS = 32;
+    /**
+     * Shortest duration of a movie or season
+     */
+    private static final int MIN_DURATION = 20;
+    /**
+     * Range of durations of movies and seasons
+     */
+    private static final int DURATION_RANGE = 160;
+    /**
+     * Maximum number of seasons of a serial
+     */
+    private static final int MAX_SEASONS = 8;
+    /**
+     * Maximum number of videos in the history of a user
+     */
+    private static final int HISTORY_SIZE = 20;
+    /**
+     * Maximum number of views of a video in the history of a user
+     */
+    private static final int MAX_VIEWS = 5;
+    /**
+     * Number of words in the description of an actor
+     */
+    private static final int DESCRIPTION_SIZE = 40;
+    /**
+     * Maximum number of words or awards a query filters by
+     */
+    private static final int FILTER_SIZE = 3;
+    /**
+     * Maximum number of awards of a kind earned by an actor
+     */
+    private static final int MAX_AWARDS = 5;
+    /**
+     * Highest grade given by a rating
+     */
+    private static final int MAX_GRADE = 10;
+    /**
+     * Maximum number of results asked for by queries
+     */
+    private static final int QUERY_SIZE = 20;
+    /**
+     * Factory of generators used to write output
+     */
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    /**
+     * Types of commands
+     */
+    private static final String[] COMMAND_TYPES = {"view", "view", "favorite", "rating"};
+    /**
+     * Types of objects queries are performed on
+     */
+    private static final String[] OBJECT_TYPES = {Constants.ACTORS, Constants.MOVIES,
+        Constants.SHOWS, Constants.USERS};
+    /**
+     * Criteria of actor queries
+     */
+    private static final String[] ACTOR_CRITERIA = {"average", Constants.AWARDS,
+        Constants.FILTER_DESCRIPTIONS};
+    /**
+     * Criteria of video queries
+     */
+    private static final String[] VIDEO_CRITERIA = {"ratings", "favorite", "longest",
+        "most_viewed"};
+    /**
+     * Types of recommendations
+     */
+    private static final String[] RECOMMENDATION_TYPES = {"standard", "best_unseen", "popular",
+        "favorite", "search"};
+    /**
+     * Number of actors
+     */
+    private final int numActors;
+    /**
+     * Number of movies, which come first among videos
+     */
+    private final int numMovies;
+    /**
+     * Number of videos, serials coming after movies
+     */
+    private final int numVideos;
+    /**
+     * Number of users
+     */
+    private final int numUsers;
+    /**
+     * Number of actions
+     */
+    private final int numActions;
+    /**
+     * Share of commands among actions
+     */
+    private final double commandShare;
+    /**
+     * Share of queries among actions
+     */
+    private final double queryShare;
+    /**
+     * Source of randomness
+     */
+    private final Random random;
+    /**
+     * Popularity of videos
+     */
+    private final ZipfDistribution videoPopularity;
+    /**
+     * Activity of users
+     */
+    private final ZipfDistribution userActivity;
+    /**
+     * Popularity of actors
+     */
+    private final ZipfDistribution actorPopularity;
+    /**
+     * Videos by rank of popularity, so that popular videos are spread among all videos
+     */
+    private final int[] videosByRank;
+    /**
+     * Number of seasons of each video, 0 for movies
+     */
+    private final int[] numSeasons;
+
+    public WorkloadGenerator(final Map<String, String> options) {
+        this.numActors = Integer.parseInt(options.getOrDefault("actors", DEFAULT_ACTORS));
+        this.numMovies = Integer.parseInt(options.getOrDefault("movies", DEFAULT_VIDEOS));
+        this.numVideos = this.numMovies
+                + Integer.parseInt(options.getOrDefault("serials", DEFAULT_VIDEOS));
+        this.numUsers = Integer.parseInt(options.getOrDefault("users", DEFAULT_USERS));
+        this.numActions = Integer.parseInt(options.getOrDefault("actions", DEFAULT_ACTIONS));
+        this.commandShare = Double.parseDouble(options.getOrDefault("commands",
+                                                                    DEFAULT_COMMANDS));
+        this.queryShare = Double.parseDouble(options.getOrDefault("queries", DEFAULT_QUERIES));
+        double skew = Double.parseDouble(options.getOrDefault("skew", DEFAULT_SKEW));
+        this.random = new Random(Long.parseLong(options.getOrDefault("seed", DEFAULT_SEED)));
+        // Actions always refer to a user and commands to a video
+        if (this.numActions > 0 && (this.numUsers == 0 || this.numVideos == 0)) {
+            throw new IllegalArgumentException("Actions need at least one user and video");
+        }
+        this.videoPopularity = new ZipfDistribution(this.numVideos, skew);
+        this.userActivity = new ZipfDistribution(this.numUsers, skew);
+        this.actorPopularity = new ZipfDistribution(this.numActors, skew);
+        // Shuffle popularity ranks of videos so that both movies and serials are popular
+        this.videosByRank = new int[this.numVideos];
+        for (int i = 0; i < this.numVideos; ++i) {
+            int j = this.random.nextInt(i + 1);
+            this.videosByRank[i] = this.videosByRank[j];
+            this.videosByRank[j] = i;
+        }
+        this.numSeasons = new int[this.numVideos];
+        for (int i = this.numMovies; i < this.numVideos; ++i) {
+            this.numSeasons[i] = 1 + this.random.nextInt(MAX_SEASONS);
+        }
+    }
+
+    /**
+     * Writes an input file with the given options
+     * @param args options given as name=value
+     * @throws IOException in case of exceptions to writing
+     */
+    public static void main(final String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "");
+        }
+        if (!options.containsKey("output")) {
+            System.out.println("Usage: WorkloadGenerator output=file [actors=n] [movies=n] "
+                    + "[serials=n] [users=n] [actions=n] [skew=exponent] [commands=share] "
+                    + "[queries=share] [seed=n]");
+            return;
+        }
+        try (OutputStream stream = new BufferedOutputStream(
+                new FileOutputStream(options.get("output")), BUFFER_SIZE)) {
+            new WorkloadGenerator(options).generate(stream);
+        }
+    }
+
+    /**
+     * Writes the whole input, one element at a time
+     * @param stream stream input is written to
+     * @throws IOException in case of exceptions to writing
+     */
+    public void generate(final OutputStream stream) throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(stream,
+                                                                    JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeObjectFieldStart(Constants.DATABASE);
+            this.writeActors(generator);
+            this.writeMovies(generator);
+            this.writeSerials(generator);
+            this.writeUsers(generator);
+            generator.writeEndObject();
+            this.writeActions(generator);
+            generator.writeEndObject();
+        }
+    }
+
+    private static String videoTitle(final int video) {
+        return "Video " + video;
+    }
+
+    private static String actorName(final int actor) {
+        return "Actor " + actor;
+    }
+
+    private static String username(final int user) {
+        return "user" + user;
+    }
+
+    private int pickVideo() {
+        return this.videosByRank[this.videoPopularity.sample(this.random)];
+    }
+
+    private int pickUser() {
+        return this.userActivity.sample(this.random);
+    }
+
+    private String pickGenre() {
+        return DatabaseBenchmark.GENRES[this.random.nextInt(DatabaseBenchmark.GENRES.length)];
+    }
+
+    private String pickYear() {
+        return String.valueOf(FIRST_YEAR + this.random.nextInt(NUM_YEARS));
+    }
+
+    private void writeActors(final JsonGenerator generator) throws IOException {
+        generator.writeArrayFieldStart(Constants.ACTORS);
+        for (int i = 0; i < this.numActors; ++i) {
+            generator.writeStartObject();
+            generator.writeStringField(Constants.NAME, actorName(i));
+            StringBuilder description = new StringBuilder();
+            for (int j = 0; j < DESCRIPTION_SIZE; ++j) {
+                description.append(DatabaseBenchmark.WORDS[
+                        this.random.nextInt(DatabaseBenchmark.WORDS.length)]).append(' ');
+            }
+            generator.writeStringField(Constants.DESCRIPTION, description.toString());
+            // Filmography is not used by the database, give a few videos anyway
+            generator.writeArrayFieldStart(Constants.FILMOGRAPHY);
+            if (this.numVideos > 0) {
+                for (int j = this.random.nextInt(FILMOGRAPHY_SIZE + 1); j > 0; --j) {
+                    generator.writeString(videoTitle(this.pickVideo()));
+                }
+            }
+            generator.writeEndArray();
+            generator.writeArrayFieldStart(Constants.AWARDS);
+            for (String award : DatabaseBenchmark.AWARDS) {
+                if (this.random.nextBoolean()) {
+                    generator.writeStartObject();
+                    generator.writeStringField(Constants.AWARD_TYPE, award);
+                    generator.writeNumberField(Constants.NUMBER_OF_AWARDS,
+                                               1 + this.random.nextInt(MAX_AWARDS));
+                    generator.writeEndObject();
+                }
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    private void writeVideo(final JsonGenerator generator, final int video,
+                            final String castField) throws IOException {
+        generator.writeStringField(Constants.NAME, videoTitle(video));
+        generator.writeStringField(Constants.YEAR, this.pickYear());
+        // Popular actors star in more videos
+        generator.writeArrayFieldStart(castField);
+        if (this.numActors > 0) {
+            for (int j = this.random.nextInt(CAST_SIZE + 1); j > 0; --j) {
+                generator.writeString(actorName(this.actorPopularity.sample(this.random)));
+            }
+        }
+        generator.writeEndArray();
+        generator.writeArrayFieldStart(Constants.GENRES);
+        for (int j = 1 + this.random.nextInt(GENRES_SIZE); j > 0; --j) {
+            generator.writeString(this.pickGenre());
+        }
+        generator.writeEndArray();
+    }
+
+    private void writeMovies(final JsonGenerator generator) throws IOException {
+        generator.writeArrayFieldStart(Constants.MOVIES);
+        for (int i = 0; i < this.numMovies; ++i) {
+            generator.writeStartObject();
+            this.writeVideo(generator, i, Constants.ACTORS);
+            generator.writeNumberField(Constants.DURATION,
+                                       MIN_DURATION + this.random.nextInt(DURATION_RANGE));
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    private void writeSerials(final JsonGenerator generator) throws IOException {
+        generator.writeArrayFieldStart(Constants.SHOWS);
+        for (int i = this.numMovies; i < this.numVideos; ++i) {
+            generator.writeStartObject();
+            this.writeVideo(generator, i, Constants.CAST);
+            generator.writeNumberField(Constants.NUMBER_OF_SEASONS, this.numSeasons[i]);
+            generator.writeArrayFieldStart(Constants.SEASONS);
+            for (int j = 1; j <= this.numSeasons[i]; ++j) {
+                generator.writeStartObject();
+                generator.writeNumberField(Constants.CURRENT_SEASON, j);
+                generator.writeNumberField(Constants.DURATION,
+                                           MIN_DURATION + this.random.nextInt(DURATION_RANGE));
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    private void writeUsers(final JsonGenerator generator) throws IOException {
+        generator.writeArrayFieldStart(Constants.USERS);
+        for (int i = 0; i < this.numUsers; ++i) {
+            generator.writeStartObject();
+            generator.writeStringField(Constants.USERNAME, username(i));
+            generator.writeStringField(Constants.SUBSCRIPTION,
+                                       this.random.nextBoolean() ? "PREMIUM" : "BASIC");
+            // Users mostly watch popular videos and favor some of the videos they watched
+            Set<Integer> history = new LinkedHashSet<>();
+            if (this.numVideos > 0) {
+                for (int j = this.random.nextInt(HISTORY_SIZE + 1); j > 0; --j) {
+                    history.add(this.pickVideo());
+                }
+            }
+            generator.writeArrayFieldStart(Constants.HISTORY);
+            for (int video : history) {
+                generator.writeStartObject();
+                generator.writeStringField(Constants.NAME, videoTitle(video));
+                generator.writeNumberField(Constants.NUMBER_VIEWS,
+                                           1 + this.random.nextInt(MAX_VIEWS));
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeArrayFieldStart(Constants.FAVORITE_MOVIES);
+            for (int video : history) {
+                if (this.random.nextBoolean()) {
+                    generator.writeString(videoTitle(video));
+                }
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    private void writeActions(final JsonGenerator generator) throws IOException {
+        generator.writeArrayFieldStart(Constants.ACTIONS);
+        for (int id = 1; id <= this.numActions; ++id) {
+            generator.writeStartObject();
+            generator.writeNumberField(Constants.ID, id);
+            double kind = this.random.nextDouble();
+            if (kind < this.commandShare) {
+                this.writeCommand(generator);
+            } else if (kind < this.commandShare + this.queryShare) {
+                this.writeQuery(generator);
+            } else {
+                this.writeRecommendation(generator);
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    private void writeCommand(final JsonGenerator generator) throws IOException {
+        String type = COMMAND_TYPES[this.random.nextInt(COMMAND_TYPES.length)];
+        int video = this.pickVideo();
+        generator.writeStringField(Constants.ACTION_TYPE, Constants.COMMAND);
+        generator.writeStringField(Constants.TYPE, type);
+        generator.writeStringField(Constants.USER, username(this.pickUser()));
+        generator.writeStringField(Constants.TITLE, videoTitle(video));
+        if (type.equals("rating")) {
+            generator.writeNumberField(Constants.GRADE, 1 + this.random.nextInt(MAX_GRADE));
+            // Seasons are only given when rating serials
+            if (this.numSeasons[video] != 0) {
+                generator.writeNumberField(Constants.SEASON,
+                                           1 + this.random.nextInt(this.numSeasons[video]));
+            }
+        }
+    }
+
+    private void writeQuery(final JsonGenerator generator) throws IOException {
+        String objectType = OBJECT_TYPES[this.random.nextInt(OBJECT_TYPES.length)];
+        generator.writeStringField(Constants.ACTION_TYPE, Constants.QUERY);
+        generator.writeStringField(Constants.OBJECT, objectType);
+        generator.writeNumberField(Constants.NUMBER, 1 + this.random.nextInt(QUERY_SIZE));
+        generator.writeStringField(Constants.SORT, this.random.nextBoolean() ? "asc" : "desc");
+        String criteria = "num_ratings";
+        String year = null;
+        String genre = null;
+        String[] words = null;
+        String[] awards = null;
+        if (objectType.equals(Constants.ACTORS)) {
+            criteria = ACTOR_CRITERIA[this.random.nextInt(ACTOR_CRITERIA.length)];
+            if (criteria.equals(Constants.AWARDS)) {
+                awards = new String[1 + this.random.nextInt(FILTER_SIZE)];
+                for (int i = 0; i < awards.length; ++i) {
+                    awards[i] = DatabaseBenchmark.AWARDS[
+                            this.random.nextInt(DatabaseBenchmark.AWARDS.length)];
+                }
+            } else if (criteria.equals(Constants.FILTER_DESCRIPTIONS)) {
+                words = new String[1 + this.random.nextInt(FILTER_SIZE)];
+                for (int i = 0; i < words.length; ++i) {
+                    words[i] = DatabaseBenchmark.WORDS[
+                            this.random.nextInt(DatabaseBenchmark.WORDS.length)];
+                }
+            }
+        } else if (!objectType.equals(Constants.USERS)) {
+            criteria = VIDEO_CRITERIA[this.random.nextInt(VIDEO_CRITERIA.length)];
+            if (this.random.nextBoolean()) {
+                year = this.pickYear();
+            }
+            if (this.random.nextBoolean()) {
+                genre = this.pickGenre();
+            }
+        }
+        generator.writeStringField(Constants.CRITERIA, criteria);
+        generator.writeObjectFieldStart(Constants.FILTERS);
+        generator.writeStringField(Constants.YEAR, year);
+        generator.writeStringField(Constants.GENRE, genre);
+        writeStrings(generator, Constants.WORDS, words);
+        writeStrings(generator, Constants.AWARDS, awards);
+        generator.writeEndObject();
+    }
+
+    private static void writeStrings(final JsonGenerator generator, final String field,
+                                     final String[] strings) throws IOException {
+        if (strings == null) {
+            generator.writeNullField(field);
+            return;
+        }
+        generator.writeArrayFieldStart(field);
+        for (String string : strings) {
+            generator.writeString(string);
+        }
+        generator.writeEndArray();
+    }
+
+    private void writeRecommendation(final JsonGenerator generator) throws IOException {
+        String type = RECOMMENDATION_TYPES[this.random.nextInt(RECOMMENDATION_TYPES.length)];
+        generator.writeStringField(Constants.ACTION_TYPE, Constants.RECOMMENDATION);
+        generator.writeStringField(Constants.TYPE, type);
+        generator.writeStringField(Constants.USERNAME, username(this.pickUser()));
+        if (type.equals("search")) {
+            generator.writeStringField(Constants.GENRE, this.pickGenre());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Zipf distribution over ranks 0 to n - 1, rank k being drawn with probability proportional
+ * to 1 / (k + 1) ^ exponent
+ */
+public final class ZipfDistribution {
+    /**
+     * Cumulative probability of each rank
+     */
+    private final double[] cumulative;
+
+    public ZipfDistribution(final int n, final double exponent) {
+        this.cumulative = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; ++k) {
+            sum += 1 / Math.pow(k + 1, exponent);
+            this.cumulative[k] = sum;
+        }
+        // Normalize so that the last rank has cumulative probability 1
+        for (int k = 0; k < n; ++k) {
+            this.cumulative[k] /= sum;
+        }
+    }
+
+    /**
+     * Draw a rank
+     * @param random source of randomness
+     * @return rank between 0 and n - 1, lower ranks being more likely
+     */
+    public int sample(final Random random) {
+        int position = Arrays.binarySearch(this.cumulative, random.nextDouble());
+        // Position of first cumulative probability above the drawn value if not found exactly
+        if (position < 0) {
+            position = -position - 1;
+        }
+        return Math.min(position, this.cumulative.length - 1);
+    }
+}
@@ -1,19 +1,31 @@
 package checker;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import common.Constants;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Checker to verify the correctness of the tests.
  */
 public final class Checker {
+    /**
+     * Factory of parsers used to stream output and reference files
+     */
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
     /**.
      * DO NOT MODIFY
      * @param directory The name of the output directory.
@@ -62,7 +74,58 @@ public final class Checker {
     }
 
     /**
-     * Displays the score obtained after running the tests
+     * Compares an output file against its reference record by record, without loading
+     * either of them whole, stopping at the first record that differs
+     * @param refFile reference file
+     * @param outFile output file
+     * @return true if both files hold the same records in the same order
+     * @throws IOException in case of exceptions to reading
+     */
+    public boolean compareFiles(final File refFile, final File outFile) throws IOException {
+        try (JsonParser refParser = JSON_FACTORY.createParser(refFile);
+             JsonParser outParser = JSON_FACTORY.createParser(outFile)) {
+            // Both files must hold an array of records
+            if (refParser.nextToken() != JsonToken.START_ARRAY
+                    || outParser.nextToken() != JsonToken.START_ARRAY) {
+                return false;
+            }
+            while (true) {
+                QueryTest refQuery = readQuery(refParser);
+                QueryTest outQuery = readQuery(outParser);
+                // Check if both arrays ended at the same time
+                if (refQuery == null || outQuery == null) {
+                    return refQuery == outQuery;
+                }
+                if (!refQuery.equals(outQuery)) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    private static QueryTest readQuery(final JsonParser parser) throws IOException {
+        // Check if there are no more records in array
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return null;
+        }
+        QueryTest query = new QueryTest();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (Constants.ID_STRING.equals(field)) {
+                query.setId(parser.getValueAsInt());
+            } else if (Constants.MESSAGE.equals(field)) {
+                query.setMessage(parser.getValueAsString());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return query;
+    }
+
+    /**
+     * Displays the score obtained after running the tests, verifying all files at once
+     * and showing how long each of them took
      * @param dirOutPath output directory path
      * @param dirRefPath references directory path
      * @param inputPath input directory path
@@ -81,29 +144,35 @@ public final class Checker {
         File[] directoryRef = dirRef.listFiles();
         File[] inputDir = input.listFiles();
 
-        List<List<QueryTest>> listRefs = new ArrayList<>();
-        List<List<QueryTest>> listOut = new ArrayList<>();
-
         if (directoryList != null) {
             Arrays.sort(directoryList);
-            for (File file : directoryList) {
-                listOut.add(createQueries(file));
-            }
         }
-
         if (directoryRef != null) {
             Arrays.sort(directoryRef);
-            for (File file : directoryRef) {
-                listRefs.add(createQueries(file));
-            }
         }
 
-        if (listOut.size() == listRefs.size() && inputDir != null) {
+        if (directoryList != null && directoryRef != null
+                && directoryList.length == directoryRef.length && inputDir != null) {
             Arrays.sort(inputDir);
-            for (int i = 0; i < listOut.size(); i++) {
+            // Start verifying every output file against its reference in parallel
+            List<ForkJoinTask<Verification>> verifications = new ArrayList<>();
+            for (int i = 0; i < directoryList.length; i++) {
+                File refFile = directoryRef[i];
+                File outFile = directoryList[i];
+                verifications.add(ForkJoinPool.commonPool().submit(() -> {
+                    long start = System.nanoTime();
+                    boolean passed = compareFiles(refFile, outFile);
+                    return new Verification(passed, System.nanoTime() - start);
+                }));
+            }
+            // Show results in order of files as they become available
+            for (int i = 0; i < directoryList.length; i++) {
+                Verification verification = getVerification(verifications.get(i));
+                String time = " (" + TimeUnit.NANOSECONDS.toMicros(verification.elapsed)
+                        + " us)";
 
                 length = Constants.MAX_LENGTH - inputDir[i].getName().length();
-                if (compareQueries(listRefs.get(i), listOut.get(i))) {
+                if (verification.passed) {
 
                     char[] chars = new char[length];
                     Arrays.fill(chars, ' ');
@@ -115,13 +184,15 @@ public final class Checker {
                                 + s
                                 + "PASSED (+"
                                 + Constants.LARGE_TEST
-                                + ")");
+                                + ")"
+                                + time);
                         score += Constants.LARGE_TEST;
                     } else {
                         System.out.println(inputDir[i].getName()
                                 + s
                                 + "PASSED (+"
-                                + Constants.SINGLE_TEST + ")");
+                                + Constants.SINGLE_TEST + ")"
+                                + time);
                         score += Constants.SINGLE_TEST;
                     }
                 } else {
@@ -130,7 +201,8 @@ public final class Checker {
                     String s = new String(chars);
                     System.out.println(inputDir[i].getName()
                             + s
-                            + "FAILED (+0)");
+                            + "FAILED (+0)"
+                            + time);
                 }
             }
         }
@@ -139,5 +211,40 @@ public final class Checker {
         System.out.println("TOTAL = " + score + "/80");
     }
 
+    private static Verification getVerification(final ForkJoinTask<Verification> task)
+            throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while verifying files");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
 
+    /**
+     * Outcome of verifying an output file
+     */
+    private static final class Verification {
+        /**
+         * Whether output matches reference
+         */
+        private final boolean passed;
+        /**
+         * Time taken to verify file, in nanoseconds
+         */
+        private final long elapsed;
+
+        Verification(final boolean passed, final long elapsed) {
+            this.passed = passed;
+            this.elapsed = elapsed;
+        }
+    }
 }
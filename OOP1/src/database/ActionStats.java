@@ -0,0 +1,135 @@
+package database;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histogram and allocated bytes of every type of action performed by any database,
+ * recorded only if the stats.file system property names a file to write them to
+ */
+public final class ActionStats {
+    /**
+     * System property holding the path of the file stats are written to
+     */
+    public static final String FILE_PROPERTY = "stats.file";
+    /**
+     * Stats of the whole program, null if they are not recorded
+     */
+    private static final ActionStats INSTANCE = System.getProperty(FILE_PROPERTY) == null
+            ? null : new ActionStats(System.getProperty(FILE_PROPERTY));
+    /**
+     * Percentiles written for every type of action
+     */
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+    /**
+     * Names percentiles are written under
+     */
+    private static final String[] PERCENTILE_NAMES = {"p50_ns", "p90_ns", "p99_ns",
+        "p999_ns"};
+    /**
+     * Path of the file stats are written to
+     */
+    private final String path;
+    /**
+     * Thread bean giving bytes allocated by the current thread, null if not supported
+     */
+    private final com.sun.management.ThreadMXBean threadBean;
+    /**
+     * Latencies of every type of action, indexed by ordinal
+     */
+    private final LatencyHistogram[] latencies =
+            new LatencyHistogram[CommandType.values().length];
+    /**
+     * Bytes allocated by every type of action, indexed by ordinal
+     */
+    private final AtomicLongArray allocatedBytes =
+            new AtomicLongArray(CommandType.values().length);
+
+    private ActionStats(final String path) {
+        this.path = path;
+        for (int i = 0; i < this.latencies.length; ++i) {
+            this.latencies[i] = new LatencyHistogram();
+        }
+        // Allocated bytes are only available on JVMs that keep track of them
+        com.sun.management.ThreadMXBean bean = null;
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+            bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            if (bean.isThreadAllocatedMemorySupported()) {
+                bean.setThreadAllocatedMemoryEnabled(true);
+            } else {
+                bean = null;
+            }
+        }
+        this.threadBean = bean;
+    }
+
+    /**
+     * Get the stats of the whole program
+     * @return stats or null if they are not recorded
+     */
+    public static ActionStats getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get the number of bytes allocated so far by the current thread
+     * @return number of bytes, 0 if not supported
+     */
+    public long getAllocatedBytes() {
+        if (this.threadBean == null) {
+            return 0;
+        }
+        return this.threadBean.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Record the cost of performing an action
+     * @param type type of action
+     * @param nanos time taken, in nanoseconds
+     * @param bytes bytes allocated
+     */
+    public void record(final CommandType type, final long nanos, final long bytes) {
+        this.latencies[type.ordinal()].record(nanos);
+        this.allocatedBytes.addAndGet(type.ordinal(), bytes);
+    }
+
+    /**
+     * Write stats of every type of action performed at least once to the stats file
+     * @throws IOException in case of exceptions to writing
+     */
+    public void dump() throws IOException {
+        try (JsonGenerator generator = new JsonFactory().createGenerator(new File(this.path),
+                                                                          JsonEncoding.UTF8)) {
+            generator.useDefaultPrettyPrinter();
+            generator.writeStartArray();
+            for (CommandType type : CommandType.values()) {
+                LatencyHistogram latency = this.latencies[type.ordinal()];
+                if (latency.getCount() == 0) {
+                    continue;
+                }
+                generator.writeStartObject();
+                generator.writeStringField("action", type.getLabel());
+                generator.writeNumberField("count", latency.getCount());
+                generator.writeNumberField("total_ns", latency.getTotal());
+                generator.writeNumberField("mean_ns", latency.getTotal() / latency.getCount());
+                for (int i = 0; i < PERCENTILES.length; ++i) {
+                    generator.writeNumberField(PERCENTILE_NAMES[i],
+                                               latency.getPercentile(PERCENTILES[i]));
+                }
+                generator.writeNumberField("max_ns", latency.getMax());
+                generator.writeNumberField("allocated_bytes",
+                                           this.allocatedBytes.get(type.ordinal()));
+                generator.writeNumberField("allocated_bytes_per_action",
+                        this.allocatedBytes.get(type.ordinal()) / latency.getCount());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+    }
+}
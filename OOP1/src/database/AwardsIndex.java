@@ -0,0 +1,88 @@
+package database;
+
+import actor.ActorsAwards;
+import entities.Actor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Index of actors by the types of awards they have earned
+ */
+public final class AwardsIndex {
+    /**
+     * Indexed actors sorted by total number of awards and then name
+     */
+    private final Actor[] actorsByAwards;
+    /**
+     * Awards bitmasks of indexed actors, in the same order as the actors
+     */
+    private final int[] masks;
+    /**
+     * Positions of actors that have earned each type of award, indexed by award ordinal
+     */
+    private final int[][] postings;
+
+    public AwardsIndex(final Collection<Actor> actors) {
+        // Sort actors the way awards queries return them
+        this.actorsByAwards = actors.toArray(new Actor[0]);
+        Arrays.sort(this.actorsByAwards, Comparator.comparingInt(Actor::getTotalAwards)
+                                                   .thenComparing(Actor::getName));
+        this.masks = new int[this.actorsByAwards.length];
+        // Count actors for each award to size posting lists
+        int[] sizes = new int[ActorsAwards.values().length];
+        for (int i = 0; i < this.actorsByAwards.length; ++i) {
+            this.masks[i] = this.actorsByAwards[i].getAwardsMask();
+            for (int award = 0; award < sizes.length; ++award) {
+                if ((this.masks[i] & (1 << award)) != 0) {
+                    sizes[award]++;
+                }
+            }
+        }
+        // Fill posting lists in sorted order
+        this.postings = new int[sizes.length][];
+        for (int award = 0; award < sizes.length; ++award) {
+            this.postings[award] = new int[sizes[award]];
+            int filled = 0;
+            for (int i = 0; i < this.masks.length; ++i) {
+                if ((this.masks[i] & (1 << award)) != 0) {
+                    this.postings[award][filled] = i;
+                    filled++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Find all actors that have earned every given type of award
+     * @param awards awards to look for
+     * @return list of matching actors sorted by total number of awards and then name
+     */
+    public ArrayList<Actor> search(final List<ActorsAwards> awards) {
+        ArrayList<Actor> matching = new ArrayList<>();
+        // Without any award to look for all actors match
+        if (awards.isEmpty()) {
+            matching.addAll(Arrays.asList(this.actorsByAwards));
+            return matching;
+        }
+        // Build bitmask of required awards and pick the award earned by the fewest actors
+        int required = 0;
+        int[] shortest = null;
+        for (ActorsAwards award : awards) {
+            required |= 1 << award.ordinal();
+            if (shortest == null || this.postings[award.ordinal()].length < shortest.length) {
+                shortest = this.postings[award.ordinal()];
+            }
+        }
+        // Only actors of the shortest posting list can have all awards, check their bitmask
+        for (int position : shortest) {
+            if ((this.masks[position] & required) == required) {
+                matching.add(this.actorsByAwards[position]);
+            }
+        }
+        return matching;
+    }
+}
@@ -0,0 +1,180 @@
+package database;
+
+import actor.ActorsAwards;
+import common.Constants;
+import entertainment.Genre;
+import entities.User;
+import entities.Video;
+import fileio.ActionInputData;
+import utils.Utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Action compiled from input into a form the database can perform directly, with its type
+ * decided, its filters parsed and the user and video it refers to looked up
+ */
+public final class Command {
+    /**
+     * Id of action
+     */
+    private final int actionId;
+    /**
+     * Type of action
+     */
+    private final CommandType type;
+    /**
+     * User performing the action or receiving the recommendation, null if not in database
+     */
+    private final User user;
+    /**
+     * Video the action is performed on, null if not in database
+     */
+    private final Video video;
+    /**
+     * Grade given by a rating
+     */
+    private final double grade;
+    /**
+     * Season rated, 0 if a movie is rated
+     */
+    private final int seasonNumber;
+    /**
+     * Number of results a query returns
+     */
+    private final int number;
+    /**
+     * Whether query results are sorted in decreasing order
+     */
+    private final boolean descending;
+    /**
+     * Type of videos a query is performed on, either movies, shows or null for all videos
+     */
+    private final String objectType;
+    /**
+     * Release year videos are filtered by, null if not given
+     */
+    private final Integer year;
+    /**
+     * Genre videos are filtered by or searched for, null if not given
+     */
+    private final Genre genre;
+    /**
+     * Words actors' descriptions are filtered by
+     */
+    private final List<String> words;
+    /**
+     * Awards actors are filtered by
+     */
+    private final List<ActorsAwards> awards;
+
+    public Command(final ActionInputData action, final CommandType type, final User user,
+                   final Video video) {
+        this.actionId = action.getActionId();
+        this.type = type;
+        this.user = user;
+        this.video = video;
+        this.grade = action.getGrade();
+        this.seasonNumber = action.getSeasonNumber();
+        this.number = action.getNumber();
+        this.descending = "desc".equals(action.getSortType());
+        // Parse only the filters the type of action makes use of
+        String videoType = null;
+        Integer yearFilter = null;
+        Genre genreFilter = null;
+        List<String> wordsFilter = null;
+        List<ActorsAwards> awardsFilter = null;
+        switch (type) {
+            case QUERY_RATING_VIDEO:
+            case QUERY_FAVORITE_VIDEO:
+            case QUERY_LONGEST_VIDEO:
+            case QUERY_MOST_VIEWED_VIDEO:
+                // Any object type other than movies or shows matches all videos
+                if (Constants.MOVIES.equals(action.getObjectType())
+                        || Constants.SHOWS.equals(action.getObjectType())) {
+                    videoType = action.getObjectType();
+                }
+                if (action.getFilters().get(0).get(0) != null) {
+                    yearFilter = Integer.parseInt(action.getFilters().get(0).get(0));
+                }
+                if (action.getFilters().get(1).get(0) != null) {
+                    genreFilter = Utils.stringToGenre(action.getFilters().get(1).get(0));
+                }
+                break;
+            case QUERY_DESCRIPTION_ACTORS:
+                wordsFilter = action.getFilters().get(action.getFilters().size() - 2);
+                break;
+            case QUERY_AWARDS_ACTORS:
+                awardsFilter = new ArrayList<>();
+                for (String award : action.getFilters().get(action.getFilters().size() - 1)) {
+                    awardsFilter.add(Utils.stringToAwards(award));
+                }
+                break;
+            case RECOMMEND_SEARCH:
+                if (action.getGenre() != null) {
+                    genreFilter = Utils.stringToGenre(action.getGenre());
+                }
+                break;
+            default:
+                break;
+        }
+        this.objectType = videoType;
+        this.year = yearFilter;
+        this.genre = genreFilter;
+        this.words = wordsFilter;
+        this.awards = awardsFilter;
+    }
+
+    public int getActionId() {
+        return actionId;
+    }
+
+    public CommandType getType() {
+        return type;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public Video getVideo() {
+        return video;
+    }
+
+    public double getGrade() {
+        return grade;
+    }
+
+    public int getSeasonNumber() {
+        return seasonNumber;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public String getObjectType() {
+        return objectType;
+    }
+
+    public Integer getYear() {
+        return year;
+    }
+
+    public Genre getGenre() {
+        return genre;
+    }
+
+    public List<String> getWords() {
+        return words;
+    }
+
+    public List<ActorsAwards> getAwards() {
+        return awards;
+    }
+}
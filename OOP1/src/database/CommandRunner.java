@@ -0,0 +1,131 @@
+package database;
+
+import fileio.Writer;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Performs compiled actions in order, running consecutive read-only actions in parallel on a
+ * fork-join pool, since they all see the database as left by the last command before them
+ */
+public final class CommandRunner {
+    /**
+     * Maximum number of read-only actions performed together, bounding the number of results
+     * held before being written
+     */
+    private static final int MAX_BATCH_SIZE = 4096;
+    /**
+     * Number of actions below which a batch is no longer split between threads
+     */
+    private static final int SPLIT_THRESHOLD = 16;
+    /**
+     * Database the actions are performed on
+     */
+    private final Database database;
+    /**
+     * Pool read-only actions are performed on
+     */
+    private final ForkJoinPool pool;
+
+    public CommandRunner(final Database database, final ForkJoinPool pool) {
+        this.database = database;
+        this.pool = pool;
+    }
+
+    /**
+     * Performs actions and writes their results in the order of actions
+     * @param commands compiled actions to be performed
+     * @param writer writer results are appended to
+     * @throws IOException in case of exceptions to writing
+     */
+    public void run(final List<Command> commands, final Writer writer) throws IOException {
+        String[] results = new String[Math.min(commands.size(), MAX_BATCH_SIZE)];
+        int start = 0;
+        while (start < commands.size()) {
+            // Commands change the database, so they are performed alone and in order
+            Command first = commands.get(start);
+            if (!first.getType().isReadOnly()) {
+                writer.writeResult(first.getActionId(), this.database.execute(first));
+                start++;
+                continue;
+            }
+            // Gather read-only actions up to the next command
+            int end = start + 1;
+            while (end < commands.size() && end - start < MAX_BATCH_SIZE
+                    && commands.get(end).getType().isReadOnly()) {
+                end++;
+            }
+            // Perform them together and write their results in order
+            if (end - start < SPLIT_THRESHOLD) {
+                for (int i = start; i < end; ++i) {
+                    results[i - start] = this.database.execute(commands.get(i));
+                }
+            } else {
+                this.pool.invoke(new Batch(this.database, commands, results, start, start, end));
+            }
+            for (int i = start; i < end; ++i) {
+                writer.writeResult(commands.get(i).getActionId(), results[i - start]);
+                results[i - start] = null;
+            }
+            start = end;
+        }
+    }
+
+    /**
+     * Range of read-only actions performed in parallel by splitting it in halves
+     */
+    private static final class Batch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        /**
+         * Database the actions are performed on
+         */
+        private final Database database;
+        /**
+         * All compiled actions
+         */
+        private final List<Command> commands;
+        /**
+         * Results of the batch, indexed from its first action
+         */
+        private final String[] results;
+        /**
+         * Position of first action of the whole batch
+         */
+        private final int offset;
+        /**
+         * Position of first action of this range
+         */
+        private final int start;
+        /**
+         * Position after last action of this range
+         */
+        private final int end;
+
+        Batch(final Database database, final List<Command> commands, final String[] results,
+              final int offset, final int start, final int end) {
+            this.database = database;
+            this.commands = commands;
+            this.results = results;
+            this.offset = offset;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            // Perform small ranges directly, split larger ones in halves
+            if (end - start <= SPLIT_THRESHOLD) {
+                for (int i = start; i < end; ++i) {
+                    results[i - offset] = database.execute(commands.get(i));
+                }
+                return;
+            }
+            int middle = (start + end) >>> 1;
+            invokeAll(new Batch(database, commands, results, offset, start, middle),
+                      new Batch(database, commands, results, offset, middle, end));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package database;
+
+/**
+ * Types of actions the database can perform, one for every action type, object type and
+ * criteria combination found in input
+ */
+public enum CommandType {
+    VIEW("command/view"),
+    FAVORITE("command/favorite"),
+    RATING("command/rating"),
+    QUERY_AVERAGE_ACTORS("query/actors/average"),
+    QUERY_AWARDS_ACTORS("query/actors/awards"),
+    QUERY_DESCRIPTION_ACTORS("query/actors/filter_description"),
+    QUERY_RATING_VIDEO("query/videos/ratings"),
+    QUERY_FAVORITE_VIDEO("query/videos/favorite"),
+    QUERY_LONGEST_VIDEO("query/videos/longest"),
+    QUERY_MOST_VIEWED_VIDEO("query/videos/most_viewed"),
+    QUERY_USERS("query/users/num_ratings"),
+    RECOMMEND_STANDARD("recommendation/standard"),
+    RECOMMEND_BEST_UNSEEN("recommendation/best_unseen"),
+    RECOMMEND_POPULAR("recommendation/popular"),
+    RECOMMEND_FAVORITE("recommendation/favorite"),
+    RECOMMEND_SEARCH("recommendation/search");
+
+    /**
+     * Action type, object type and criteria of actions of this type, separated by slashes
+     */
+    private final String label;
+
+    CommandType(final String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Check if performing an action of this type leaves the database unchanged
+     * @return false for commands given by users, true for queries and recommendations
+     */
+    public boolean isReadOnly() {
+        return this != VIEW && this != FAVORITE && this != RATING;
+    }
+}
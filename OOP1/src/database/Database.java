@@ -1,28 +1,33 @@
 package database;
 
+import actor.ActorsAwards;
 import entertainment.Genre;
+import entertainment.Season;
 import entities.Actor;
 import entities.User;
 import entities.Movie;
 import entities.Show;
 import entities.Video;
+import entities.ViewHistory;
 import fileio.Input;
 import fileio.ActionInputData;
 import fileio.ActorInputData;
 import fileio.UserInputData;
 import fileio.MovieInputData;
 import fileio.SerialInputData;
+import fileio.SnapshotReader;
+import fileio.SnapshotWriter;
 import utils.Utils;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Optional;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Arrays;
 
 public final class Database {
 
@@ -42,8 +47,82 @@ public final class Database {
      * Map of user objects in database
      */
     private final Map<String, User> usersMap = new LinkedHashMap<>();
+    /**
+     * List of video objects in database indexed by id
+     */
+    private final ArrayList<Video> videosById = new ArrayList<>();
+    /**
+     * Inverted index of words in actors' career descriptions
+     */
+    private DescriptionIndex descriptionIndex;
+    /**
+     * Index of actors by types of awards earned
+     */
+    private AwardsIndex awardsIndex;
+    /**
+     * Number of views of each genre and videos of each genre
+     */
+    private GenrePopularity genrePopularity;
+    /**
+     * Index of videos by type, year and genre
+     */
+    private VideoFilterIndex videoFilterIndex;
+    /**
+     * Rated videos ordered by rating
+     */
+    private RatingIndex ratingIndex;
+    /**
+     * Videos of each genre ordered by rating and then title
+     */
+    private GenreRatingIndex genreRatingIndex;
+
+    /**
+     * Maximum number of query and recommendation results kept in cache
+     */
+    private static final int QUERY_CACHE_CAPACITY = 1024;
+    /**
+     * Cache of query and recommendation results
+     */
+    private QueryCache queryCache = new QueryCache(QUERY_CACHE_CAPACITY);
+    /**
+     * Number of ratings given so far, changing whenever video or user ratings change
+     */
+    private long ratingsEpoch;
+    /**
+     * Number of views so far, changing whenever video or genre views change
+     */
+    private long viewsEpoch;
+    /**
+     * Number of videos added to favorites so far, changing whenever favorites change
+     */
+    private long favoritesEpoch;
+
+    /**
+     * Value every snapshot starts with, spelling OOP1
+     */
+    private static final int SNAPSHOT_MAGIC = 0x4F4F5031;
+    /**
+     * Version of the snapshot layout, to be changed whenever the layout changes
+     */
+    private static final int SNAPSHOT_VERSION = 1;
+    /**
+     * Tag of a movie in a snapshot
+     */
+    private static final byte SNAPSHOT_MOVIE = 0;
+    /**
+     * Tag of a show in a snapshot
+     */
+    private static final byte SNAPSHOT_SHOW = 1;
+    /**
+     * Genres by ordinal, as written in snapshots
+     */
+    private static final Genre[] GENRES = Genre.values();
+    /**
+     * Awards by ordinal, as written in snapshots
+     */
+    private static final ActorsAwards[] AWARDS = ActorsAwards.values();
 
-    private Database() {
+    public Database() {
     }
 
     /**
@@ -53,6 +132,11 @@ public final class Database {
         private static final Database INSTANCE = new Database();
     }
 
+    /**
+     * Get the default database; a database is only meant to process one input at a time,
+     * so inputs processed at once should each be given a database of their own
+     * @return database shared by the whole program
+     */
     public static Database getInstance() {
         return Singleton.INSTANCE;
     }
@@ -73,6 +157,10 @@ public final class Database {
         return usersMap;
     }
 
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
     /**
      * Takes a given input and coverts it to more usable form
      * @param givenInput input to be converted
@@ -82,11 +170,300 @@ public final class Database {
         this.convertInput();
     }
 
+    /**
+     * Save the current state of the database to a binary snapshot, including the views,
+     * ratings and favorites given by commands so far
+     * @param path path of the snapshot file
+     * @throws IOException in case of exceptions to writing
+     */
+    public void saveSnapshot(final String path) throws IOException {
+        try (SnapshotWriter writer = new SnapshotWriter(path)) {
+            writer.writeInt(SNAPSHOT_MAGIC);
+            writer.writeInt(SNAPSHOT_VERSION);
+            // Write videos in database order, so that they are given the same ids when loaded
+            writer.writeInt(this.videosById.size());
+            for (Video video : this.videosById) {
+                writeVideo(writer, video);
+            }
+            writer.writeInt(this.actorsMap.size());
+            for (Actor actor : this.actorsMap.values()) {
+                writeActor(writer, actor);
+            }
+            // Find the show of every season, since users keep rated seasons as objects
+            Map<Season, Show> seasonShows = new IdentityHashMap<>();
+            for (Video video : this.videosById) {
+                if (video instanceof Show) {
+                    for (Season season : ((Show) video).getSeasons()) {
+                        seasonShows.put(season, (Show) video);
+                    }
+                }
+            }
+            writer.writeInt(this.usersMap.size());
+            for (User user : this.usersMap.values()) {
+                this.writeUser(writer, user, seasonShows);
+            }
+        }
+    }
+
+    /**
+     * Replace the state of the database with one saved to a binary snapshot, instead of
+     * processing the original input again
+     * @param path path of the snapshot file
+     * @throws IOException in case of exceptions to reading or if the file is not a snapshot
+     */
+    public void loadSnapshot(final String path) throws IOException {
+        // Build the snapshot's state apart from the current one, so that a snapshot failing
+        // to load leaves the database as it was
+        ArrayList<Video> loadedVideos;
+        Map<String, Video> loadedVideosMap = new LinkedHashMap<>();
+        Map<String, Actor> loadedActorsMap = new LinkedHashMap<>();
+        Map<String, User> loadedUsersMap = new LinkedHashMap<>();
+        try (SnapshotReader reader = new SnapshotReader(path)) {
+            if (reader.readInt() != SNAPSHOT_MAGIC || reader.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException(path + " is not a database snapshot");
+            }
+            // Videos come in database order, give them back their ids
+            int numVideos = reader.readCount();
+            loadedVideos = new ArrayList<>(numVideos);
+            for (int i = 0; i < numVideos; ++i) {
+                Video video = readVideo(reader);
+                video.setId(loadedVideos.size());
+                loadedVideos.add(video);
+                loadedVideosMap.put(video.getTitle(), video);
+            }
+            // Actors are created once videos have their ratings, so their averages are right
+            int numActors = reader.readCount();
+            for (int i = 0; i < numActors; ++i) {
+                Actor actor = readActor(reader, loadedVideos);
+                loadedActorsMap.put(actor.getName(), actor);
+            }
+            // Users count their history and favorites towards the views and favorites of videos
+            int numUsers = reader.readCount();
+            for (int i = 0; i < numUsers; ++i) {
+                User user = readUser(reader, loadedVideos);
+                loadedUsersMap.put(user.getUsername(), user);
+            }
+        }
+        // Snapshot was read whole, replace the state of the database, there is no input to keep
+        this.input = null;
+        actorsMap.clear();
+        actorsMap.putAll(loadedActorsMap);
+        videosMap.clear();
+        videosMap.putAll(loadedVideosMap);
+        usersMap.clear();
+        usersMap.putAll(loadedUsersMap);
+        videosById.clear();
+        videosById.addAll(loadedVideos);
+        this.buildIndexes();
+    }
+
+    /**
+     * Compiles actions into commands the database can perform directly, so that the type of
+     * each action is decided, its filters are parsed and the user and video it refers to are
+     * looked up only once; must be called after input has been processed
+     * @param actions actions to be compiled
+     * @return list of commands in the order of given actions, leaving out unknown actions
+     */
+    public ArrayList<Command> compile(final List<ActionInputData> actions) {
+        ArrayList<Command> commands = new ArrayList<>(actions.size());
+        for (ActionInputData action : actions) {
+            CommandType type = getCommandType(action);
+            if (type == null) {
+                continue;
+            }
+            // Users and videos in database do not change once input has been processed
+            commands.add(new Command(action, type, this.usersMap.get(action.getUsername()),
+                                     this.videosMap.get(action.getTitle())));
+        }
+        return commands;
+    }
+
+    private static CommandType getCommandType(final ActionInputData action) {
+        // Check action type
+        switch (action.getActionType()) {
+            case "command":
+                // Check command type
+                switch (action.getType()) {
+                    case "view":
+                        return CommandType.VIEW;
+                    case "favorite":
+                        return CommandType.FAVORITE;
+                    case "rating":
+                        return CommandType.RATING;
+                    default:
+                        return null;
+                }
+            case "query":
+                // Check type of object the query will be performed on
+                switch (action.getObjectType()) {
+                    case "actors":
+                        // Get main query criteria, criteria of video queries being performed
+                        // on all videos
+                        switch (action.getCriteria()) {
+                            case "average":
+                                return CommandType.QUERY_AVERAGE_ACTORS;
+                            case "awards":
+                                return CommandType.QUERY_AWARDS_ACTORS;
+                            case "filter_description":
+                                return CommandType.QUERY_DESCRIPTION_ACTORS;
+                            default:
+                                return getVideoQueryType(action.getCriteria());
+                        }
+                    case "movies": case "shows":
+                        return getVideoQueryType(action.getCriteria());
+                    case "users":
+                        return CommandType.QUERY_USERS;
+                    default:
+                        return null;
+                }
+            case "recommendation":
+                // Get type of recommendation strategy to be applied
+                switch (action.getType()) {
+                    case "standard":
+                        return CommandType.RECOMMEND_STANDARD;
+                    case "best_unseen":
+                        return CommandType.RECOMMEND_BEST_UNSEEN;
+                    case "popular":
+                        return CommandType.RECOMMEND_POPULAR;
+                    case "favorite":
+                        return CommandType.RECOMMEND_FAVORITE;
+                    case "search":
+                        return CommandType.RECOMMEND_SEARCH;
+                    default:
+                        return null;
+                }
+            default:
+                return null;
+        }
+    }
+
+    private static CommandType getVideoQueryType(final String criteria) {
+        // Get main query criteria
+        switch (criteria) {
+            case "ratings":
+                return CommandType.QUERY_RATING_VIDEO;
+            case "favorite":
+                return CommandType.QUERY_FAVORITE_VIDEO;
+            case "longest":
+                return CommandType.QUERY_LONGEST_VIDEO;
+            case "most_viewed":
+                return CommandType.QUERY_MOST_VIEWED_VIDEO;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Performs a compiled action, reusing the result of an identical query or recommendation
+     * if nothing it depends on has changed since, and recording its cost if stats are kept
+     * @param command compiled action to be performed
+     * @return success or failure message corresponding to action
+     */
+    public String execute(final Command command) {
+        // Measure cost of action only if stats are recorded
+        ActionStats stats = ActionStats.getInstance();
+        if (stats == null) {
+            return this.executeCached(command);
+        }
+        long bytes = stats.getAllocatedBytes();
+        long start = System.nanoTime();
+        String message = this.executeCached(command);
+        long nanos = System.nanoTime() - start;
+        stats.record(command.getType(), nanos, stats.getAllocatedBytes() - bytes);
+        return message;
+    }
+
+    private String executeCached(final Command command) {
+        if (!command.getType().isReadOnly()) {
+            return this.perform(command);
+        }
+        // Look for a result computed from the current state, computing it otherwise
+        long version = this.getVersion(command);
+        String message = this.queryCache.get(command, version);
+        if (message == null) {
+            message = this.perform(command);
+            this.queryCache.put(command, version, message);
+        }
+        return message;
+    }
+
+    private long getVersion(final Command command) {
+        // Recommendations depend on the videos the user has seen, which only change when
+        // the user views a new video
+        long userEpoch = 0;
+        if (command.getUser() != null) {
+            userEpoch = command.getUser().getNumViewed();
+        }
+        // All epochs only ever grow, so their sum changes whenever any of them does
+        switch (command.getType()) {
+            case QUERY_AVERAGE_ACTORS:
+            case QUERY_RATING_VIDEO:
+            case QUERY_USERS:
+                return this.ratingsEpoch;
+            case QUERY_FAVORITE_VIDEO:
+                return this.favoritesEpoch;
+            case QUERY_MOST_VIEWED_VIDEO:
+                return this.viewsEpoch;
+            case RECOMMEND_STANDARD:
+                return userEpoch;
+            case RECOMMEND_BEST_UNSEEN:
+            case RECOMMEND_SEARCH:
+                return this.ratingsEpoch + userEpoch;
+            case RECOMMEND_POPULAR:
+                return this.viewsEpoch + userEpoch;
+            case RECOMMEND_FAVORITE:
+                return this.favoritesEpoch + userEpoch;
+            default:
+                // Awards, description and longest queries only depend on input
+                return 0;
+        }
+    }
+
+    private String perform(final Command command) {
+        switch (command.getType()) {
+            case VIEW:
+                return this.userViewVideo(command);
+            case FAVORITE:
+                return this.userFavoriteVideo(command);
+            case RATING:
+                return this.userRateVideo(command);
+            case QUERY_AVERAGE_ACTORS:
+                return this.queryAverageActors(command);
+            case QUERY_AWARDS_ACTORS:
+                return this.queryAwardsActors(command);
+            case QUERY_DESCRIPTION_ACTORS:
+                return this.queryDescriptionActors(command);
+            case QUERY_RATING_VIDEO:
+                return this.queryRatingVideo(command);
+            case QUERY_FAVORITE_VIDEO:
+                return this.queryFavoriteVideo(command);
+            case QUERY_LONGEST_VIDEO:
+                return this.queryLongestVideo(command);
+            case QUERY_MOST_VIEWED_VIDEO:
+                return this.queryMostViewedVideo(command);
+            case QUERY_USERS:
+                return this.queryUsers(command);
+            case RECOMMEND_STANDARD:
+                return this.recommendStandard(command);
+            case RECOMMEND_BEST_UNSEEN:
+                return this.recommendBestUnseen(command);
+            case RECOMMEND_POPULAR:
+                return this.recommendPopular(command);
+            case RECOMMEND_FAVORITE:
+                return this.recommendFavorite(command);
+            case RECOMMEND_SEARCH:
+                return this.recommendSearch(command);
+            default:
+                return null;
+        }
+    }
+
     private void convertInput() {
         // Make sure maps are clear before processing new input
         actorsMap.clear();
         videosMap.clear();
         usersMap.clear();
+        videosById.clear();
         // Convert string-based objects from input into usable movie objects
         for (MovieInputData movieData : this.input.getMovies()) {
             // Convert movie's genres from string to enum values
@@ -115,18 +492,39 @@ public final class Database {
             // upcasted object for generality
             this.videosMap.put(show.getTitle(), show);
         }
-        // Convert string-based objects from input into usable actor objects
-        for (ActorInputData actorData : this.input.getActors()) {
-            // Create list of video objects based on actor's filmography
-            ArrayList<Video> starredIn = new ArrayList<>();
-            for (Video video : videosMap.values()) {
-                if (video.getCast().contains(actorData.getName())) {
+        // Give videos dense ids in database order so they can be stored by position
+        for (Video video : videosMap.values()) {
+            video.setId(this.videosById.size());
+            this.videosById.add(video);
+        }
+        // Map each cast member's name to the videos they star in, in database order
+        Map<String, ArrayList<Video>> videosByCast = new HashMap<>();
+        for (Video video : videosMap.values()) {
+            if (video.getCast() == null) {
+                continue;
+            }
+            for (String name : video.getCast()) {
+                ArrayList<Video> starredIn = videosByCast.computeIfAbsent(name,
+                                                                key -> new ArrayList<>());
+                // Add video only once even if name is given more than once in cast
+                if (starredIn.isEmpty() || starredIn.get(starredIn.size() - 1) != video) {
                     starredIn.add(video);
                 }
             }
+        }
+        // Convert string-based objects from input into usable actor objects
+        for (ActorInputData actorData : this.input.getActors()) {
+            // Create list of video objects based on actor's filmography
+            ArrayList<Video> starredIn = new ArrayList<>(
+                    videosByCast.getOrDefault(actorData.getName(), new ArrayList<>()));
             // Create object for current actor
             Actor actor = new Actor(actorData.getName(), actorData.getCareerDescription(),
                     starredIn, actorData.getAwards());
+            // Add actor object to the cast of every video in filmography, so that rating a video
+            // updates the filmography average of its actors
+            for (Video video : starredIn) {
+                video.addCastActor(actor);
+            }
             // Add object to map using name as key for faster lookup
             this.actorsMap.put(actor.getName(), actor);
         }
@@ -135,144 +533,398 @@ public final class Database {
             // Create map of viewed videos as objects and number of views
             // Create list of favorite videos as objects
             Map<Video, Integer> seen = new HashMap<>();
-            ArrayList<Video> favorites = new ArrayList<>();
-            for (Video video : videosMap.values()) {
-                if (userData.getHistory().containsKey(video.getTitle())) {
-                    seen.put(video, userData.getHistory().get(video.getTitle()));
+            for (Map.Entry<String, Integer> entry : userData.getHistory().entrySet()) {
+                // Look up viewed video by title, ignoring titles not in database
+                Video video = this.videosMap.get(entry.getKey());
+                if (video != null) {
+                    seen.put(video, entry.getValue());
                 }
-                if (userData.getFavoriteMovies().contains(video.getTitle())) {
+            }
+            ArrayList<Video> favorites = new ArrayList<>();
+            for (String title : userData.getFavoriteMovies()) {
+                // Look up favorite video by title, ignoring titles not in database
+                Video video = this.videosMap.get(title);
+                if (video != null) {
                     favorites.add(video);
                 }
             }
+            // Keep favorites in database order, without duplicates
+            favorites.sort(Comparator.comparingInt(Video::getId));
+            for (int i = favorites.size() - 1; i > 0; --i) {
+                if (favorites.get(i) == favorites.get(i - 1)) {
+                    favorites.remove(i);
+                }
+            }
             // Create object for current user
             User user = new User(userData.getUsername(), userData.getSubscriptionType(),
                     seen, favorites);
             // Add object to map using username as key for faster lookup
             this.usersMap.put(user.getUsername(), user);
         }
+        this.buildIndexes();
+    }
+
+    private void buildIndexes() {
+        // Index words of actors' career descriptions for filter description queries
+        this.descriptionIndex = new DescriptionIndex(this.actorsMap.values());
+        // Index actors by awards earned for awards queries
+        this.awardsIndex = new AwardsIndex(this.actorsMap.values());
+        // Count views of each genre, starting from the views in users' initial history
+        this.genrePopularity = new GenrePopularity(this.videosMap.values());
+        // Index videos by the filters video queries can be given
+        this.videoFilterIndex = new VideoFilterIndex(this.videosMap.values());
+        // Order videos that have a rating by rating, updated as videos are rated
+        this.ratingIndex = new RatingIndex();
+        for (Video video : this.videosMap.values()) {
+            this.ratingIndex.add(video);
+        }
+        // Order videos of each genre by rating and title for search recommendations
+        this.genreRatingIndex = new GenreRatingIndex(this.videosMap.values());
+        // Start with no cached results for the new input
+        this.queryCache = new QueryCache(QUERY_CACHE_CAPACITY);
+        this.ratingsEpoch = 0;
+        this.viewsEpoch = 0;
+        this.favoritesEpoch = 0;
+    }
+
+    private static void writeVideo(final SnapshotWriter writer,
+                                   final Video video) throws IOException {
+        writer.writeByte(video instanceof Show ? SNAPSHOT_SHOW : SNAPSHOT_MOVIE);
+        writer.writeString(video.getTitle());
+        writer.writeInt(video.getYear());
+        // Cast may be missing from input
+        if (video.getCast() == null) {
+            writer.writeInt(-1);
+        } else {
+            writer.writeInt(video.getCast().size());
+            for (String name : video.getCast()) {
+                writer.writeString(name);
+            }
+        }
+        writer.writeInt(video.getGenres().size());
+        for (Genre genre : video.getGenres()) {
+            writer.writeInt(genre.ordinal());
+        }
+        // Write ratings as running sums and counts, averages are derived from them
+        if (video instanceof Show) {
+            Show show = (Show) video;
+            writer.writeInt(show.getNumberOfSeasons());
+            writer.writeInt(show.getSeasons().size());
+            for (Season season : show.getSeasons()) {
+                writer.writeInt(season.getCurrentSeason());
+                writer.writeInt(season.getDuration());
+                writer.writeDouble(season.getRatings().getSum());
+                writer.writeInt(season.getRatings().getCount());
+            }
+        } else {
+            Movie movie = (Movie) video;
+            writer.writeInt(movie.getDuration());
+            writer.writeDouble(movie.getRatings().getSum());
+            writer.writeInt(movie.getRatings().getCount());
+        }
+    }
+
+    private static Video readVideo(final SnapshotReader reader) throws IOException {
+        byte type = reader.readByte();
+        String title = reader.readString();
+        int year = reader.readInt();
+        ArrayList<String> cast = null;
+        // Cast may be missing, written as -1, and is not sized ahead since the size is
+        // only checked as names are read
+        int castSize = reader.readInt();
+        if (castSize != -1) {
+            if (castSize < 0) {
+                throw new IOException("Invalid cast size " + castSize + " in snapshot");
+            }
+            cast = new ArrayList<>();
+            for (int i = 0; i < castSize; ++i) {
+                cast.add(reader.readString());
+            }
+        }
+        int numGenres = reader.readCount();
+        ArrayList<Genre> genres = new ArrayList<>(numGenres);
+        for (int i = 0; i < numGenres; ++i) {
+            genres.add(readConstant(reader, GENRES));
+        }
+        if (type == SNAPSHOT_SHOW) {
+            int numberOfSeasons = reader.readCount();
+            int numSeasons = reader.readCount();
+            // Show keeps an average for each of its number of seasons
+            if (numSeasons > numberOfSeasons) {
+                throw new IOException("Show " + title + " has more than " + numberOfSeasons
+                        + " seasons in snapshot");
+            }
+            ArrayList<Season> seasons = new ArrayList<>(numSeasons);
+            for (int i = 0; i < numSeasons; ++i) {
+                Season season = new Season(reader.readInt(), reader.readInt());
+                double sum = reader.readDouble();
+                season.getRatings().restore(sum, reader.readInt());
+                seasons.add(season);
+            }
+            Show show = new Show(title, year, cast, genres, numberOfSeasons, seasons);
+            // Derive averages of show from the restored ratings of its seasons
+            show.restoreAverageRatings();
+            return show;
+        }
+        if (type != SNAPSHOT_MOVIE) {
+            throw new IOException("Unknown type of video " + type + " in snapshot");
+        }
+        Movie movie = new Movie(title, year, cast, genres, reader.readInt());
+        double sum = reader.readDouble();
+        movie.getRatings().restore(sum, reader.readInt());
+        return movie;
+    }
+
+    private static void writeActor(final SnapshotWriter writer,
+                                   final Actor actor) throws IOException {
+        writer.writeString(actor.getName());
+        writer.writeString(actor.getCareerDescription());
+        writer.writeInt(actor.getAwards().size());
+        for (Map.Entry<ActorsAwards, Integer> entry : actor.getAwards().entrySet()) {
+            writer.writeInt(entry.getKey().ordinal());
+            writer.writeInt(entry.getValue());
+        }
+        // Write filmography as video ids
+        writer.writeInt(actor.getFilmography().size());
+        for (Video video : actor.getFilmography()) {
+            writer.writeInt(video.getId());
+        }
+    }
+
+    private static Actor readActor(final SnapshotReader reader,
+                                   final List<Video> videos) throws IOException {
+        String name = reader.readString();
+        String careerDescription = reader.readString();
+        int numAwards = reader.readCount();
+        Map<ActorsAwards, Integer> awards = new LinkedHashMap<>();
+        for (int i = 0; i < numAwards; ++i) {
+            ActorsAwards award = readConstant(reader, AWARDS);
+            awards.put(award, reader.readInt());
+        }
+        int numStarredIn = reader.readCount();
+        ArrayList<Video> starredIn = new ArrayList<>(numStarredIn);
+        for (int i = 0; i < numStarredIn; ++i) {
+            starredIn.add(readVideoId(reader, videos));
+        }
+        Actor actor = new Actor(name, careerDescription, starredIn, awards);
+        // Add actor object to the cast of every video in filmography, as when processing input
+        for (Video video : starredIn) {
+            video.addCastActor(actor);
+        }
+        return actor;
+    }
+
+    private void writeUser(final SnapshotWriter writer, final User user,
+                           final Map<Season, Show> seasonShows) throws IOException {
+        writer.writeString(user.getUsername());
+        writer.writeString(user.getSubscriptionType());
+        // Write history as ids of viewed videos and number of views of each
+        ViewHistory history = user.getHistory();
+        writer.writeInt(history.size());
+        for (int id = history.nextSetBit(0); id >= 0; id = history.nextSetBit(id + 1)) {
+            writer.writeInt(id);
+            writer.writeInt(user.getNumViews(this.videosById.get(id)));
+        }
+        writer.writeInt(user.getFavorites().size());
+        for (Video video : user.getFavorites()) {
+            writer.writeInt(video.getId());
+        }
+        writer.writeInt(user.getRatedMovies().size());
+        for (Movie movie : user.getRatedMovies()) {
+            writer.writeInt(movie.getId());
+        }
+        // Write rated seasons as id of show and position of season in show
+        writer.writeInt(user.getRatedShows().size());
+        for (Season season : user.getRatedShows()) {
+            Show show = seasonShows.get(season);
+            writer.writeInt(show.getId());
+            writer.writeInt(show.getSeasons().indexOf(season));
+        }
+    }
+
+    private static User readUser(final SnapshotReader reader,
+                                 final List<Video> videos) throws IOException {
+        String username = reader.readString();
+        String subscriptionType = reader.readString();
+        int numViewed = reader.readCount();
+        Map<Video, Integer> history = new HashMap<>();
+        for (int i = 0; i < numViewed; ++i) {
+            Video video = readVideoId(reader, videos);
+            history.put(video, reader.readInt());
+        }
+        int numFavorites = reader.readCount();
+        ArrayList<Video> favorites = new ArrayList<>(numFavorites);
+        for (int i = 0; i < numFavorites; ++i) {
+            favorites.add(readVideoId(reader, videos));
+        }
+        User user = new User(username, subscriptionType, history, favorites);
+        // Ratings were already counted towards videos, only the user's lists are restored
+        int numRatedMovies = reader.readCount();
+        for (int i = 0; i < numRatedMovies; ++i) {
+            Video video = readVideoId(reader, videos);
+            if (!(video instanceof Movie)) {
+                throw new IOException("Rated movie " + video.getTitle()
+                        + " is not a movie in snapshot");
+            }
+            user.getRatedMovies().add((Movie) video);
+        }
+        int numRatedSeasons = reader.readCount();
+        for (int i = 0; i < numRatedSeasons; ++i) {
+            Video video = readVideoId(reader, videos);
+            if (!(video instanceof Show)) {
+                throw new IOException("Rated show " + video.getTitle()
+                        + " is not a show in snapshot");
+            }
+            List<Season> seasons = ((Show) video).getSeasons();
+            int position = reader.readInt();
+            if (position < 0 || position >= seasons.size()) {
+                throw new IOException("Invalid season " + position + " of " + video.getTitle()
+                        + " in snapshot");
+            }
+            user.getRatedShows().add(seasons.get(position));
+        }
+        return user;
+    }
+
+    private static Video readVideoId(final SnapshotReader reader,
+                                     final List<Video> videos) throws IOException {
+        int id = reader.readInt();
+        if (id < 0 || id >= videos.size()) {
+            throw new IOException("Invalid video id " + id + " in snapshot");
+        }
+        return videos.get(id);
+    }
+
+    private static <T> T readConstant(final SnapshotReader reader,
+                                      final T[] values) throws IOException {
+        int ordinal = reader.readInt();
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new IOException("Invalid ordinal " + ordinal + " in snapshot");
+        }
+        return values[ordinal];
     }
 
     /**
      * Performs the action of viewing a video for a certain user
-     * @param action details of action to be performed
+     * @param command compiled action to be performed
      * @return success or failure message corresponding to action
      */
-    public String userViewVideo(final ActionInputData action) {
-        // Get user object from user map using given username
-        User user = this.usersMap.get(action.getUsername());
-        // Get video object from video map using given video title
-        Video video = this.videosMap.get(action.getTitle());
-        return user.viewVideo(video);
+    public String userViewVideo(final Command command) {
+        User user = command.getUser();
+        Video video = command.getVideo();
+        String message = user.viewVideo(video);
+        // Viewing an existing video always succeeds, count the view towards its genres
+        if (video != null) {
+            this.genrePopularity.addViews(video, 1);
+            this.viewsEpoch++;
+        }
+        return message;
     }
 
     /**
      * Performs the action of adding a video to favorites list for a certain user
-     * @param action details of action to be performed
+     * @param command compiled action to be performed
      * @return success or failure message corresponding to action
      */
-    public String userFavoriteVideo(final ActionInputData action) {
-        // Get user object from user map using given username
-        User user = this.usersMap.get(action.getUsername());
-        // Get video object from video map using given video title
-        Video video = this.videosMap.get(action.getTitle());
-        return user.favoriteVideo(video);
+    public String userFavoriteVideo(final Command command) {
+        User user = command.getUser();
+        Video video = command.getVideo();
+        int numFavorites = video == null ? 0 : video.getNumFavorites();
+        String message = user.favoriteVideo(video);
+        // Check if video was added to favorites
+        if (video != null && video.getNumFavorites() != numFavorites) {
+            this.favoritesEpoch++;
+        }
+        return message;
     }
 
     /**
      * Performs the action of rating a video for a certain user
-     * @param action details of action to be performed
+     * @param command compiled action to be performed
      * @return success or failure message corresponding to action
      */
-    public String userRateVideo(final ActionInputData action) {
-        // Get user object from user map using given username
-        User user = this.usersMap.get(action.getUsername());
-        // Get video object from video map using given video title
-        Video video = this.videosMap.get(action.getTitle());
-        Double rating = action.getGrade();
-        // Check if video to be rated is a show or a movie
-        if (action.getSeasonNumber() == 0) {
-            return user.rateVideo((Movie) video, rating);
+    public String userRateVideo(final Command command) {
+        User user = command.getUser();
+        Video video = command.getVideo();
+        double rating = command.getGrade();
+        // Check if video to be rated is a show or a movie and if the rating will be given
+        boolean accepted;
+        if (command.getSeasonNumber() == 0) {
+            accepted = user.canRate((Movie) video);
+        } else {
+            accepted = user.canRate((Show) video, command.getSeasonNumber());
+        }
+        // Take video out of rating indexes while its rating changes
+        if (accepted) {
+            this.ratingIndex.remove(video);
+            this.genreRatingIndex.remove(video);
+        }
+        String message;
+        if (command.getSeasonNumber() == 0) {
+            message = user.rateVideo((Movie) video, rating);
         } else {
-            return user.rateVideo((Show) video, action.getSeasonNumber(), rating);
+            message = user.rateVideo((Show) video, command.getSeasonNumber(), rating);
         }
+        if (accepted) {
+            this.ratingIndex.add(video);
+            this.genreRatingIndex.add(video);
+            this.ratingsEpoch++;
+        }
+        return message;
     }
 
     /**
      * Performs a query on actors based on average
-     * @param action details of action to be performed
+     * @param command compiled action to be performed
      * @return success or failure message corresponding to action
      */
-    public String queryAverageActors(final ActionInputData action) {
+    public String queryAverageActors(final Command command) {
         // Get number of actors to be returned
-        int n = action.getNumber();
+        int n = command.getNumber();
         StringBuilder averageMessage = new StringBuilder("Query result: [");
-        // Get initial list of actors in database
-        ArrayList<Actor> actorsToSort = new ArrayList<>(this.actorsMap.values());
-        // Sort list of actors by rating and name
-        actorsToSort.sort(Comparator.comparingDouble(
-                            Actor::getFilmographyAverageRating).thenComparing(Actor::getName));
-        // Remove all actors with invalid filmography ratings
-        actorsToSort.removeIf(actor -> actor.getFilmographyAverageRating().isNaN());
-        if (actorsToSort.isEmpty()) {
+        // Order actors by rating and name, in reverse if needed
+        Comparator<Actor> order = Comparator.comparingDouble(
+                            Actor::getFilmographyAverageRating).thenComparing(Actor::getName);
+        if (command.isDescending()) {
+            order = order.reversed();
+        }
+        // Select first n actors with valid filmography ratings; averages are kept
+        // up to date as videos are rated, so they are only read here
+        TopKSelector<Actor> selector = new TopKSelector<>(n, order);
+        for (Actor actor : this.actorsMap.values()) {
+            if (!Double.isNaN(actor.getFilmographyAverageRating())) {
+                selector.offer(actor);
+            }
+        }
+        ArrayList<Actor> sortedActors = selector.getResult();
+        if (sortedActors.isEmpty()) {
             averageMessage.append("]");
             return averageMessage.toString();
         }
-        // Reverse list if needed
-        if (action.getSortType().equals("desc")) {
-            Collections.reverse(actorsToSort);
-        }
-        // Check if n actors can be returned or return all available
-        if (actorsToSort.size() >= n) {
-            // Append actor names to the return message
-            for (int i = 0; i < n - 1; ++i) {
-                averageMessage.append(actorsToSort.get(i).getName());
-                averageMessage.append(", ");
-            }
-            averageMessage.append(actorsToSort.get(n - 1).getName());
-        } else {
-            // Append actor names to the return message
-            for (int i = 0; i < actorsToSort.size() - 1; ++i) {
-                averageMessage.append(actorsToSort.get(i).getName());
-                averageMessage.append(", ");
-            }
-            averageMessage.append(actorsToSort.get(actorsToSort.size() - 1).getName());
+        // Append actor names to the return message
+        for (int i = 0; i < sortedActors.size() - 1; ++i) {
+            averageMessage.append(sortedActors.get(i).getName());
+            averageMessage.append(", ");
         }
+        averageMessage.append(sortedActors.get(sortedActors.size() - 1).getName());
         averageMessage.append("]");
         return averageMessage.toString();
     }
 
     /**
      * Performs a query on actors based on awards
-     * @param action details of action to be performed
+     * @param command compiled action to be performed
      * @return success or failure message corresponding to action
      */
-    public String queryAwardsActors(final ActionInputData action) {
+    public String queryAwardsActors(final Command command) {
         StringBuilder awardsMessage = new StringBuilder("Query result: [");
-        ArrayList<Actor> actorsWithAwards = new ArrayList<>();
-        // Get list of awards given as filter
-        int awardsIndex = action.getFilters().size() - 1;
-        ArrayList<String> filterAwards = new ArrayList<>(action.getFilters().get(awardsIndex));
-        // Iterate over all actors in database
-        for (Actor actor : this.actorsMap.values()) {
-            // Check if actor has earned all filter awards
-            boolean containsAll = true;
-            for (String award : filterAwards) {
-                if (!actor.getAwards().containsKey(Utils.stringToAwards(award))) {
-                    containsAll = false;
-                    break;
-                }
-            }
-            if (containsAll) {
-                actorsWithAwards.add(actor);
-            }
-        }
-        // If we have found eligible actors sort them
+        // Get actors that have earned all filter awards, already sorted by total number of
+        // awards and then name
+        ArrayList<Actor> actorsWithAwards = this.awardsIndex.search(command.getAwards());
+        // If we have found eligible actors append them to message
         if (actorsWithAwards.size() != 0) {
-            // Sort list of actors based on total number of awards and then name
-            actorsWithAwards.sort(Comparator.comparingInt(Actor::getTotalAwards)
-                                            .thenComparing(Actor::getName));
             // Reverse list if needed
-            if (action.getSortType().equals("desc")) {
+            if (command.isDescending()) {
                 Collections.reverse(actorsWithAwards);
             }
             // Append all actor names in order to message
@@ -288,36 +940,17 @@ public final class Database {
 
     /**
      * Performs a query on actors based on description
-     * @param action details of action to be performed
+     * @param command compiled action to be performed
      * @return success or failure message corresponding to action
      */
-    public String queryDescriptionActors(final ActionInputData action) {
+    public String queryDescriptionActors(final Command command) {
         StringBuilder descMessage = new StringBuilder("Query result: [");
-        ArrayList<Actor> actorsMatchDesc = new ArrayList<>();
-        // Get list of filter words
-        int wordsIndex = action.getFilters().size() - 2;
-        ArrayList<String> filterWords = new ArrayList<>(action.getFilters().get(wordsIndex));
-        // Iterate over actors in database
-        for (Actor actor : this.actorsMap.values()) {
-            // Check if actor has all filter words in description
-            boolean containsAll = true;
-            for (String word : filterWords) {
-                if (!Arrays.asList(actor.getCareerDescription().toLowerCase().split("[\\s'.,!?-]"))
-                                    .contains(word)) {
-                    containsAll = false;
-                    break;
-                }
-            }
-            if (containsAll) {
-                actorsMatchDesc.add(actor);
-            }
-        }
-        // If we have found eligible actors sort them
+        // Get actors that have all filter words in description, already sorted by name
+        ArrayList<Actor> actorsMatchDesc = this.descriptionIndex.search(command.getWords());
+        // If we have found eligible actors append them to message
         if (actorsMatchDesc.size() != 0) {
-            // Sort list of actors by name
-            actorsMatchDesc.sort(Comparator.comparing(Actor::getName));
             // Reverse list if needed
-            if (action.getSortType().equals("desc")) {
+            if (command.isDescending()) {
                 Collections.reverse(actorsMatchDesc);
             }
             // Append actor names to message
@@ -333,374 +966,263 @@ public final class Database {
 
     /**
      * Performs a query on videos based on rating
-     * @param action details of action to be performed
+     * @param command compiled action to be performed
      * @return success or failure message corresponding to action
      */
-    public String queryRatingVideo(final ActionInputData action) {
+    public String queryRatingVideo(final Command command) {
         // Get number of videos to be returned
-        int n = action.getNumber();
+        int n = command.getNumber();
         StringBuilder ratingMessage = new StringBuilder("Query result: [");
-        // Get year filter if given
-        Integer year = null;
-        if (action.getFilters().get(0).get(0) != null) {
-            year = Integer.parseInt(action.getFilters().get(0).get(0));
-        }
-        // Get genre filter if given
-        Genre genre = null;
-        if (action.getFilters().get(1).get(0) != null) {
-            genre = Utils.stringToGenre(action.getFilters().get(1).get(0));
-        }
-        ArrayList<Video> videosToSort = new ArrayList<>();
-        // Iterate over videos in database
-        for (Video video : videosMap.values()) {
-            // Check if message meets given criteria
-            if (checkMatchesFilters(action, year, genre, video)) {
-                continue;
-            }
-            // Check if video has a valid rating
-            if (Double.compare(video.getAverageRating(), 0.0) == 0) {
-                continue;
+        // Order videos by rating then title
+        Comparator<Video> order = Comparator.comparingDouble(Video::getAverageRating)
+                                            .thenComparing(Video::getTitle);
+        List<Video> matching = this.videoFilterIndex.get(command.getObjectType(),
+                                                         command.getYear(),
+                                                         command.getGenre());
+        ArrayList<Video> sortedVideos;
+        // Go over whichever is smaller, rated videos or videos matching given criteria
+        if (this.ratingIndex.size() < matching.size()) {
+            sortedVideos = this.findLowestRated(command, n, order);
+        } else {
+            // Select first n videos out of those matching given criteria
+            TopKSelector<Video> selector = new TopKSelector<>(n, order);
+            for (Video video : matching) {
+                // Check if video has a valid rating
+                if (Double.compare(video.getAverageRating(), 0.0) == 0) {
+                    continue;
+                }
+                selector.offer(video);
             }
-            videosToSort.add(video);
+            sortedVideos = selector.getResult();
         }
         // Check if there any eligible videos were found
-        if (videosToSort.isEmpty()) {
+        if (sortedVideos.isEmpty()) {
             ratingMessage.append("]");
             return ratingMessage.toString();
         }
-        // Sort list of videos by rating then title
-        videosToSort.sort(Comparator.comparingDouble(Video::getAverageRating)
-                                    .thenComparing(Video::getTitle));
-        // Return required number of videos if possible or return all videos found
-        if (videosToSort.size() >= n) {
-            // Append to message all video titles
-            for (int i = 0; i < n - 1; ++i) {
-                ratingMessage.append(videosToSort.get(i).getTitle());
-                ratingMessage.append(", ");
-            }
-            ratingMessage.append(videosToSort.get(n - 1).getTitle());
-        } else {
-            // Append to message all video titles
-            for (int i = 0; i < videosToSort.size() - 1; ++i) {
-                ratingMessage.append(videosToSort.get(i).getTitle());
-                ratingMessage.append(", ");
-            }
-            ratingMessage.append(videosToSort.get(videosToSort.size() - 1).getTitle());
+        // Append to message all video titles
+        for (int i = 0; i < sortedVideos.size() - 1; ++i) {
+            ratingMessage.append(sortedVideos.get(i).getTitle());
+            ratingMessage.append(", ");
         }
+        ratingMessage.append(sortedVideos.get(sortedVideos.size() - 1).getTitle());
         ratingMessage.append("]");
         return ratingMessage.toString();
     }
 
+    private ArrayList<Video> findLowestRated(final Command command, final int n,
+                                            final Comparator<Video> order) {
+        ArrayList<Video> lowestRated = new ArrayList<>();
+        if (n <= 0) {
+            return lowestRated;
+        }
+        // Walk rated videos from the lowest rating and stop once n videos matching given
+        // criteria are found, along with any matching videos rated the same as the last of
+        // them, which may come first by title
+        for (Video video : this.ratingIndex.ascending()) {
+            if (lowestRated.size() >= n && Double.compare(video.getAverageRating(),
+                    lowestRated.get(lowestRated.size() - 1).getAverageRating()) != 0) {
+                break;
+            }
+            if (VideoFilterIndex.matches(video, command.getObjectType(), command.getYear(),
+                                         command.getGenre())) {
+                lowestRated.add(video);
+            }
+        }
+        // Keep first n videos by rating and then title
+        lowestRated.sort(order);
+        if (lowestRated.size() > n) {
+            lowestRated.subList(n, lowestRated.size()).clear();
+        }
+        return lowestRated;
+    }
+
     /**
      * Performs a query on videos based on number of favorites
-     * @param action details of action to be performed
+     * @param command compiled action to be performed
      * @return success or failure message corresponding to action
      */
-    public String queryFavoriteVideo(final ActionInputData action) {
+    public String queryFavoriteVideo(final Command command) {
         // Get number of videos to be returned
-        int n = action.getNumber();
+        int n = command.getNumber();
         StringBuilder favoriteMessage = new StringBuilder("Query result: [");
-        // Get year filter if given
-        Integer year = null;
-        if (action.getFilters().get(0).get(0) != null) {
-            year = Integer.parseInt(action.getFilters().get(0).get(0));
-        }
-        // Get genre filter if given
-        Genre genre = null;
-        if (action.getFilters().get(1).get(0) != null) {
-            genre = Utils.stringToGenre(action.getFilters().get(1).get(0));
-        }
-        // Use a map to efficiently track number of times video has been added to favorites
-        Map<String, Integer> videosToFavorites = new HashMap<>();
-        // Iterate over favorites list for all users in database
-        for (User user : usersMap.values()) {
-            for (Video video : user.getFavorites()) {
-                // Check if video matches given criteria
-                if (checkMatchesFilters(action, year, genre, video)) {
-                    continue;
-                }
-                // If video has already been added to map, update number of favorites appearances
-                if (videosToFavorites.containsKey(video.getTitle())) {
-                    videosToFavorites.put(video.getTitle(),
-                            videosToFavorites.get(video.getTitle()) + 1);
-                } else {
-                    videosToFavorites.put(video.getTitle(), 1);
-                }
+        // Order videos by number of favorites and then title, in reverse if needed
+        Comparator<Video> order = Comparator.comparingInt(Video::getNumFavorites)
+                .thenComparing(Video::getTitle);
+        if (command.isDescending()) {
+            order = order.reversed();
+        }
+        // Select first n videos out of those added to favorites at least once, using the
+        // number of favorites each video keeps track of
+        TopKSelector<Video> selector = new TopKSelector<>(n, order);
+        for (Video video : this.videoFilterIndex.get(command.getObjectType(),
+                                                     command.getYear(),
+                                                     command.getGenre())) {
+            // Check if video has been added to favorites
+            if (video.getNumFavorites() == 0) {
+                continue;
             }
+            selector.offer(video);
         }
+        ArrayList<Video> sortedVideos = selector.getResult();
         // Check if any eligible videos were found
-        if (videosToFavorites.size() == 0) {
+        if (sortedVideos.isEmpty()) {
             favoriteMessage.append("]");
             return favoriteMessage.toString();
         }
-        // Create a map to store contents of initial map in sorted order
-        Map<String, Integer> videosToSort = new LinkedHashMap<>();
-        // Check if we have to sort in reverse
-        if (action.getSortType().equals("desc")) {
-            // Use streams to sort; sort alphabetically first and then by number of favorites
-            videosToFavorites.entrySet()
-                    .stream()
-                    .sorted(Map.Entry.comparingByKey(Comparator.reverseOrder()))
-                    .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder()))
-                    .forEachOrdered(video -> videosToSort.put(video.getKey(), video.getValue()));
-        } else {
-            // Use streams to sort; sort alphabetically first and then by number of favorites
-            videosToFavorites.entrySet()
-                    .stream()
-                    .sorted(Map.Entry.comparingByKey())
-                    .sorted(Map.Entry.comparingByValue())
-                    .forEachOrdered(video -> videosToSort.put(video.getKey(), video.getValue()));
-        }
-        // Get sorted videos
-        ArrayList<String> sortedVideos = new ArrayList<>(videosToSort.keySet());
-        // Check if we can return required number of videos or return all available
-        if (videosToFavorites.size() >= n) {
-            // Append video title to message
-            for (int i = 0; i < n - 1; ++i) {
-                favoriteMessage.append(sortedVideos.get(i));
-                favoriteMessage.append(", ");
-            }
-            favoriteMessage.append(sortedVideos.get(n - 1));
-        } else {
-            // Append video title to message
-            for (int i = 0; i < sortedVideos.size() - 1; ++i) {
-                favoriteMessage.append(sortedVideos.get(i));
-                favoriteMessage.append(", ");
-            }
-            favoriteMessage.append(sortedVideos.get(sortedVideos.size() - 1));
+        // Append video title to message
+        for (int i = 0; i < sortedVideos.size() - 1; ++i) {
+            favoriteMessage.append(sortedVideos.get(i).getTitle());
+            favoriteMessage.append(", ");
         }
+        favoriteMessage.append(sortedVideos.get(sortedVideos.size() - 1).getTitle());
         favoriteMessage.append("]");
         return favoriteMessage.toString();
     }
 
     /**
      * Performs a query on videos based on length
-     * @param action details of action to be performed
+     * @param command compiled action to be performed
      * @return success or failure message corresponding to action
      */
-    public String queryLongestVideo(final ActionInputData action) {
+    public String queryLongestVideo(final Command command) {
         // Get number of videos to be returned
-        int n = action.getNumber();
+        int n = command.getNumber();
         StringBuilder lengthMessage = new StringBuilder("Query result: [");
-        // Get year filter if given
-        Integer year = null;
-        if (action.getFilters().get(0).get(0) != null) {
-            year = Integer.parseInt(action.getFilters().get(0).get(0));
-        }
-        // Get genre filter if given
-        Genre genre = null;
-        if (action.getFilters().get(1).get(0) != null) {
-            genre = Utils.stringToGenre(action.getFilters().get(1).get(0));
-        }
-        ArrayList<Video> videosToSort = new ArrayList<>();
-        // Iterate over all videos in database
-        for (Video video : videosMap.values()) {
-            // Check if video matches given criteria
-            if (checkMatchesFilters(action, year, genre, video)) {
-                continue;
-            }
-            videosToSort.add(video);
-        }
+        // Order videos by video length then title, in reverse if needed
+        Comparator<Video> order = Comparator.comparingInt(Video::getDuration)
+                .thenComparing(Video::getTitle);
+        if (command.isDescending()) {
+            order = order.reversed();
+        }
+        // Select first n videos
+        TopKSelector<Video> selector = new TopKSelector<>(n, order);
+        // Iterate over all videos in database that match given criteria
+        for (Video video : this.videoFilterIndex.get(command.getObjectType(),
+                                                     command.getYear(),
+                                                     command.getGenre())) {
+            selector.offer(video);
+        }
+        ArrayList<Video> sortedVideos = selector.getResult();
         // Check if any eligible videos were found
-        if (videosToSort.size() == 0) {
+        if (sortedVideos.size() == 0) {
             lengthMessage.append("]");
             return lengthMessage.toString();
         }
-        // Sort list of videos by video length then title
-        videosToSort.sort(Comparator.comparingInt(Video::getDuration)
-                .thenComparing(Video::getTitle));
-        // Check if we have to reverse list
-        if (action.getSortType().equals("desc")) {
-            Collections.reverse(videosToSort);
-        }
-        // Check if we can return required number of videos or return all available
-        if (videosToSort.size() >= n) {
-            // Append video title to message
-            for (int i = 0; i < n - 1; ++i) {
-                lengthMessage.append(videosToSort.get(i).getTitle());
-                lengthMessage.append(", ");
-            }
-            lengthMessage.append(videosToSort.get(n - 1).getTitle());
-        } else {
-            // Append video title to message
-            for (int i = 0; i < videosToSort.size() - 1; ++i) {
-                lengthMessage.append(videosToSort.get(i).getTitle());
-                lengthMessage.append(", ");
-            }
-            lengthMessage.append(videosToSort.get(videosToSort.size() - 1).getTitle());
+        // Append video title to message
+        for (int i = 0; i < sortedVideos.size() - 1; ++i) {
+            lengthMessage.append(sortedVideos.get(i).getTitle());
+            lengthMessage.append(", ");
         }
+        lengthMessage.append(sortedVideos.get(sortedVideos.size() - 1).getTitle());
         lengthMessage.append("]");
         return lengthMessage.toString();
     }
 
     /**
      * Performs a query on videos based on number of views
-     * @param action details of action to be performed
+     * @param command compiled action to be performed
      * @return success or failure message corresponding to action
      */
-    public String queryMostViewedVideo(final ActionInputData action) {
+    public String queryMostViewedVideo(final Command command) {
         // Get number of videos to return
-        int n = action.getNumber();
+        int n = command.getNumber();
         StringBuilder viewsMessage = new StringBuilder("Query result: [");
-        // Get year filter if given
-        Integer year = null;
-        if (action.getFilters().get(0).get(0) != null) {
-            year = Integer.parseInt(action.getFilters().get(0).get(0));
-        }
-        // Get genre filter if given
-        Genre genre = null;
-        if (action.getFilters().get(1).get(0) != null) {
-            genre = Utils.stringToGenre(action.getFilters().get(1).get(0));
-        }
-        // Use map to effectively track number of views for videos
-        Map<String, Integer> videosToViews = new HashMap<>();
-        // Iterate over history for users in database
-        for (User user : usersMap.values()) {
-            for (Video video : user.getHistory().keySet()) {
-                // Check if video matches given criteria
-                if (checkMatchesFilters(action, year, genre, video)) {
-                    continue;
-                }
-                // If video has already been added to map, update number of views
-                if (videosToViews.containsKey(video.getTitle())) {
-                    videosToViews.put(video.getTitle(), videosToViews.get(video.getTitle())
-                            + user.getHistory().get(video));
-                } else {
-                    videosToViews.put(video.getTitle(), user.getHistory().get(video));
-                }
+        // Order videos by number of views and then title, in reverse if needed
+        Comparator<Video> order = Comparator.comparingInt(Video::getNumViews)
+                .thenComparing(Video::getTitle);
+        if (command.isDescending()) {
+            order = order.reversed();
+        }
+        // Select first n videos out of those in some user's history, using the total number
+        // of views each video keeps track of
+        TopKSelector<Video> selector = new TopKSelector<>(n, order);
+        for (Video video : this.videoFilterIndex.get(command.getObjectType(),
+                                                     command.getYear(),
+                                                     command.getGenre())) {
+            // Check if video is in any history, which may list it with no views
+            if (video.getNumViewers() == 0) {
+                continue;
             }
+            selector.offer(video);
         }
+        ArrayList<Video> sortedVideos = selector.getResult();
         // Check if any eligible videos were found
-        if (videosToViews.size() == 0) {
+        if (sortedVideos.isEmpty()) {
             viewsMessage.append("]");
             return viewsMessage.toString();
         }
-        //Create a map to store contents of initial map in sorted order
-        Map<String, Integer> videosToSort = new LinkedHashMap<>();
-        // Check if we have to sort in reveres
-        if (action.getSortType().equals("desc")) {
-            // Use streams to sort; sort alphabetically first and then by number of views
-            videosToViews.entrySet()
-                    .stream()
-                    .sorted(Map.Entry.comparingByKey(Comparator.reverseOrder()))
-                    .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder()))
-                    .forEachOrdered(video -> videosToSort.put(video.getKey(), video.getValue()));
-        } else {
-            // Use streams to sort; sort alphabetically first and then by number of views
-            videosToViews.entrySet()
-                    .stream()
-                    .sorted(Map.Entry.comparingByKey())
-                    .sorted(Map.Entry.comparingByValue())
-                    .forEachOrdered(video -> videosToSort.put(video.getKey(), video.getValue()));
-        }
-        // Get list of sorted videos
-        ArrayList<String> sortedVideos = new ArrayList<>(videosToSort.keySet());
-        // Check if we can return required number of videos or return all available videos
-        if (videosToViews.size() >= n) {
-            // Append video title to message
-            for (int i = 0; i < n - 1; ++i) {
-                viewsMessage.append(sortedVideos.get(i));
-                viewsMessage.append(", ");
-            }
-            viewsMessage.append(sortedVideos.get(n - 1));
-        } else {
-            // Append video title to message
-            for (int i = 0; i < sortedVideos.size() - 1; ++i) {
-                viewsMessage.append(sortedVideos.get(i));
-                viewsMessage.append(", ");
-            }
-            viewsMessage.append(sortedVideos.get(sortedVideos.size() - 1));
+        // Append video title to message
+        for (int i = 0; i < sortedVideos.size() - 1; ++i) {
+            viewsMessage.append(sortedVideos.get(i).getTitle());
+            viewsMessage.append(", ");
         }
+        viewsMessage.append(sortedVideos.get(sortedVideos.size() - 1).getTitle());
         viewsMessage.append("]");
         return viewsMessage.toString();
     }
 
-    private boolean checkMatchesFilters(final ActionInputData action, final Integer year,
-                                        final Genre genre, final Video video) {
-        // Check if video matches year filter if available
-        if (year != null && year != video.getYear()) {
-            return true;
-        }
-        // Check if video matches genre filter if available
-        if (genre != null && !video.getGenres().contains(genre)) {
-            return true;
-        }
-        // Check if video is a movie if action is performed on movies
-        if (action.getObjectType().equals("movies") && video instanceof Show) {
-            return true;
-        }
-        // Check if video is a show if action is performed on shows
-        return action.getObjectType().equals("shows") && video instanceof Movie;
-    }
-
     /**
      * Performs a query on users based on most activity
-     * @param action details of action to be performed
+     * @param command compiled action to be performed
      * @return success or failure message corresponding to action
      */
-    public String queryUsers(final ActionInputData action) {
+    public String queryUsers(final Command command) {
         // Get number of users to return
-        int n = action.getNumber();
+        int n = command.getNumber();
         StringBuilder usersMessage = new StringBuilder("Query result: [");
-        // Get list of users from database
-        ArrayList<User> usersToSort = new ArrayList<>(this.usersMap.values());
-        // Sort list of users based on number of ratings given and then username
-        usersToSort.sort(Comparator.comparingInt(User::getNumRatings).thenComparing(
-                                                                    User::getUsername));
-        // Remove inactive users
-        usersToSort.removeIf(user -> user.getNumRatings() == 0);
-        // Check if any eligible users are left in list
-        if (usersToSort.isEmpty()) {
+        // Order users by number of ratings given and then username, in reverse if needed
+        Comparator<User> order = Comparator.comparingInt(User::getNumRatings).thenComparing(
+                                                                    User::getUsername);
+        if (command.isDescending()) {
+            order = order.reversed();
+        }
+        // Select first n active users from database
+        TopKSelector<User> selector = new TopKSelector<>(n, order);
+        for (User user : this.usersMap.values()) {
+            if (user.getNumRatings() != 0) {
+                selector.offer(user);
+            }
+        }
+        ArrayList<User> sortedUsers = selector.getResult();
+        // Check if any eligible users were found
+        if (sortedUsers.isEmpty()) {
             usersMessage.append("]");
             return usersMessage.toString();
         }
-        // Check if we need to reverse the list
-        if (action.getSortType().equals("desc")) {
-            Collections.reverse(usersToSort);
-        }
-        // Check if we can return required number of users or return all available users
-        if (usersToSort.size() >= n) {
-            // Append username to message
-            for (int i = 0; i < n - 1; ++i) {
-                usersMessage.append(usersToSort.get(i).getUsername());
-                usersMessage.append(", ");
-            }
-            usersMessage.append(usersToSort.get(n - 1).getUsername());
-        } else {
-            // Append username to message
-            for (int i = 0; i < usersToSort.size() - 1; ++i) {
-                usersMessage.append(usersToSort.get(i).getUsername());
-                usersMessage.append(", ");
-            }
-            usersMessage.append(usersToSort.get(usersToSort.size() - 1).getUsername());
+        // Append username to message
+        for (int i = 0; i < sortedUsers.size() - 1; ++i) {
+            usersMessage.append(sortedUsers.get(i).getUsername());
+            usersMessage.append(", ");
         }
+        usersMessage.append(sortedUsers.get(sortedUsers.size() - 1).getUsername());
         usersMessage.append("]");
         return usersMessage.toString();
     }
 
+    private Video findFirstUnseen(final User user) {
+        // First id not set in the user's history is the first unseen video in database
+        int id = user.getHistory().nextClearBit(0);
+        if (id < this.videosById.size()) {
+            return this.videosById.get(id);
+        }
+        return null;
+    }
+
     /**
      * Retrieves a recommended video based on user's unseen videos
-     * @param action details of action to be performed
+     * @param command compiled action to be performed
      * @return success or failure message corresponding to action
      */
-    public String recommendStandard(final ActionInputData action) {
+    public String recommendStandard(final Command command) {
         StringBuilder standardMessage = new StringBuilder("StandardRecommendation result: ");
-        // Get user object for given username if it exists
-        User user;
-        if (usersMap.containsKey(action.getUsername())) {
-            user = usersMap.get(action.getUsername());
-        } else {
+        // Check if given user exists in database
+        User user = command.getUser();
+        if (user == null) {
             return "StandardRecommendation cannot be applied!";
         }
-        // Iterate over videos in database
-        Video firstUnseen = null;
-        for (Video video : videosMap.values()) {
-            // Find first video the user has not seen
-            if (!user.getHistory().containsKey(video)) {
-                firstUnseen = video;
-                break;
-            }
-        }
+        // Find first video the user has not seen, ids being in database order
+        Video firstUnseen = this.findFirstUnseen(user);
         // If an unseen video exists return it's title
         if (firstUnseen != null) {
             standardMessage.append(firstUnseen.getTitle());
@@ -712,36 +1234,26 @@ public final class Database {
 
     /**
      * Retrieves a recommended video based on user's best unseen videos rating wise
-     * @param action details of action to be performed
+     * @param command compiled action to be performed
      * @return success or failure message corresponding to action
      */
-    public String recommendBestUnseen(final ActionInputData action) {
+    public String recommendBestUnseen(final Command command) {
         StringBuilder bestUnseenMessage
                 = new StringBuilder("BestRatedUnseenRecommendation result: ");
-        // Get user object for given username if it exists
-        User user;
-        if (usersMap.containsKey(action.getUsername())) {
-            user = usersMap.get(action.getUsername());
-        } else {
+        // Check if given user exists in database
+        User user = command.getUser();
+        if (user == null) {
             return "BestRatedUnseenRecommendation cannot be applied!";
         }
-        // Get list of videos in database
-        ArrayList<Video> videosToSort = new ArrayList<>(videosMap.values());
-        // Sort videos by rating
-        videosToSort.sort(Comparator.comparingDouble(Video::getAverageRating));
-        // Remove videos with no rating
-        videosToSort.removeIf(video -> Double.compare(video.getAverageRating(), 0.0) == 0);
-        // Get list of videos in decreasing order by rating
-        Collections.reverse(videosToSort);
-        // Check if any eligible videos were found
-        if (videosToSort.isEmpty()) {
+        // Check if any eligible videos exist
+        if (this.ratingIndex.size() == 0) {
             return "BestRatedUnseenRecommendation cannot be applied!";
         }
         Video firstBestUnseen = null;
-        // Iterate over videos in list
-        for (Video video : videosToSort) {
-            // Find first video in list that has not been viewed
-            if (!user.getHistory().containsKey(video)) {
+        // Walk rated videos from the best rated, ties being taken from the last in database,
+        // until the first video that has not been viewed
+        for (Video video : this.ratingIndex.descending()) {
+            if (!user.hasSeen(video)) {
                 firstBestUnseen = video;
                 break;
             }
@@ -751,13 +1263,7 @@ public final class Database {
             bestUnseenMessage.append(firstBestUnseen.getTitle());
         } else {
             // Return first unseen video in database regardless of rating
-            Video firstUnseen = null;
-            for (Video video : videosMap.values()) {
-                if (!user.getHistory().containsKey(video)) {
-                    firstUnseen = video;
-                    break;
-                }
-            }
+            Video firstUnseen = this.findFirstUnseen(user);
             if (firstUnseen != null) {
                 bestUnseenMessage.append(firstUnseen.getTitle());
             } else {
@@ -769,65 +1275,27 @@ public final class Database {
 
     /**
      * Retrieves a recommended video based on first unseen video from most popular genre
-     * @param action details of action to be performed
+     * @param command compiled action to be performed
      * @return success or failure message corresponding to action
      */
-    public String recommendPopular(final ActionInputData action) {
+    public String recommendPopular(final Command command) {
         StringBuilder popularMessage = new StringBuilder("PopularRecommendation result: ");
-        // Get user object for given username if it exists
-        User user;
-        if (usersMap.containsKey(action.getUsername())) {
-            user = usersMap.get(action.getUsername());
-        } else {
+        // Check if given user exists in database
+        User user = command.getUser();
+        if (user == null) {
             return "PopularRecommendation cannot be applied!";
         }
         // Check if given user has premium subscription
         if (!user.getSubscriptionType().equals("PREMIUM")) {
             return "PopularRecommendation cannot be applied!";
         }
-        // Use a map to efficiently keep track of views for videos
-        Map<Video, Integer> videosToViews = new HashMap<>();
-        // Iterate over videos in history of users in database
-        for (User userToCheck : usersMap.values()) {
-            for (Video video : userToCheck.getHistory().keySet()) {
-                // If video has already been added to map, update number of views
-                if (videosToViews.containsKey(video)) {
-                    videosToViews.put(video, videosToViews.get(video)
-                                                + userToCheck.getHistory().get(video));
-                } else {
-                    videosToViews.put(video, userToCheck.getHistory().get(video));
-                }
-            }
-        }
-        // Use a map to efficiently keep track of views for genres
-        Map<Genre, Integer> genresToViews = new LinkedHashMap<>();
-        // Iterate over videos in database and increase number of views for genre using the map
-        for (Video video : videosMap.values()) {
-            for (Genre genre : video.getGenres()) {
-                // Check if video was viewed
-                if (videosToViews.containsKey(video)) {
-                    // If genre has already been added to map, update number of views
-                    if (genresToViews.containsKey(genre)) {
-                        genresToViews.put(genre, genresToViews.get(genre)
-                                                    + videosToViews.get(video));
-                    } else {
-                        genresToViews.put(genre, videosToViews.get(video));
-                    }
-                }
-            }
-        }
-        //Create a map to store contents of initial map in sorted order
-        Map<Genre, Integer> genresToSort = new LinkedHashMap<>();
-        genresToViews.entrySet()
-                .stream()
-                .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder()))
-                .forEachOrdered(genre -> genresToSort.put(genre.getKey(), genre.getValue()));
-        // Iterate through sorted genres and find first unseen video in database
+        // Go through genres from most to least viewed and find first unseen video in database
+        // of each genre; genre views are kept up to date as videos are viewed
         Video mostPopular = null;
-        for (Genre genre : genresToSort.keySet()) {
-            for (Video video : videosMap.values()) {
-                // Check if current video in database belongs to current genre and is unseen
-                if (video.getGenres().contains(genre) && !user.getHistory().containsKey(video)) {
+        for (Genre genre : this.genrePopularity.getRanking()) {
+            for (Video video : this.genrePopularity.getVideos(genre)) {
+                // Check if current video of genre is unseen
+                if (!user.hasSeen(video)) {
                     mostPopular = video;
                     break;
                 }
@@ -847,52 +1315,40 @@ public final class Database {
 
     /**
      * Retrieves a recommended video based on most times found in favorites list of unseen videos
-     * @param action details of action to be performed
+     * @param command compiled action to be performed
      * @return success or failure message corresponding to action
      */
-    public String recommendFavorite(final ActionInputData action) {
+    public String recommendFavorite(final Command command) {
         StringBuilder favoriteMessage = new StringBuilder("FavoriteRecommendation result: ");
-        // Get user object for given username if it exists
-        User user;
-        if (usersMap.containsKey(action.getUsername())) {
-            user = usersMap.get(action.getUsername());
-        } else {
+        // Check if given user exists in database
+        User user = command.getUser();
+        if (user == null) {
             return "FavoriteRecommendation cannot be applied!";
         }
         // Check if given user has premium subscription
         if (!user.getSubscriptionType().equals("PREMIUM")) {
             return "FavoriteRecommendation cannot be applied!";
         }
-        // Add all unseen videos in database to a map to later track number of favorites
-        Map<Video, Integer> videosToFavorites = new LinkedHashMap<>();
-        for (Video video : videosMap.values()) {
-            if (!user.getHistory().containsKey(video)) {
-                videosToFavorites.put(video, 0);
-            }
-        }
-        // Check if any eligible videos were found
-        if (videosToFavorites.isEmpty()) {
-            return "FavoriteRecommendation cannot be applied!";
-        }
-        // Iterate through users in database and increase number of favorites
-        // for their favorite videos
-        for (User userToCheck : usersMap.values()) {
-            for (Video video : userToCheck.getFavorites()) {
-                // Check if video is in map
-                if (videosToFavorites.containsKey(video)) {
-                    videosToFavorites.put(video, videosToFavorites.get(video) + 1);
+        // Find the first unseen video in database with the most favorites, using the number
+        // of favorites each video keeps track of
+        Video mostFavored = null;
+        ViewHistory history = user.getHistory();
+        // Go over unseen videos a word of ids at a time, skipping seen ones by their bits
+        for (int first = 0; first < this.videosById.size(); first += Long.SIZE) {
+            long unseen = ~history.getWord(first / Long.SIZE);
+            while (unseen != 0) {
+                int id = first + Long.numberOfTrailingZeros(unseen);
+                if (id >= this.videosById.size()) {
+                    break;
+                }
+                Video video = this.videosById.get(id);
+                if (mostFavored == null
+                        || video.getNumFavorites() > mostFavored.getNumFavorites()) {
+                    mostFavored = video;
                 }
+                unseen &= unseen - 1;
             }
         }
-        // Get the video with the most ammount of favorites
-         Optional<Entry<Video, Integer>> maxEntry = videosToFavorites.entrySet()
-                                                .stream()
-                                                .max(Comparator.comparingInt(Map.Entry::getValue));
-        // Check if a maximum is available
-        Video mostFavored = null;
-        if (maxEntry.isPresent()) {
-            mostFavored = maxEntry.get().getKey();
-        }
         // Return maximum if found
         if (mostFavored != null) {
             favoriteMessage.append(mostFavored.getTitle());
@@ -905,46 +1361,43 @@ public final class Database {
     /**
      * Retrieves a set of recommended videos from a certain genre, sorted by rating and that
      * have not been viewed
-     * @param action details of action to be performed
+     * @param command compiled action to be performed
      * @return success or failure message corresponding to action
      */
-    public String recommendSearch(final ActionInputData action) {
+    public String recommendSearch(final Command command) {
         StringBuilder searchMessage = new StringBuilder("SearchRecommendation result: ");
-        // Get user object for given username if it exists
-        User user;
-        if (usersMap.containsKey(action.getUsername())) {
-            user = usersMap.get(action.getUsername());
-        } else {
+        // Check if given user exists in database
+        User user = command.getUser();
+        if (user == null) {
             return "SearchRecommendation cannot be applied!";
         }
         // Get the genre given as criteria
-        Genre genre = Utils.stringToGenre(action.getGenre());
+        Genre genre = command.getGenre();
         // Check if given user has premium subscription
         if (!user.getSubscriptionType().equals("PREMIUM")) {
             return "SearchRecommendation cannot be applied!";
         }
-        // Add to list all videos from database that match genre and are unseen
-        ArrayList<Video> videosToSort = new ArrayList<>();
-        for (Video video : videosMap.values()) {
-            if (!video.getGenres().contains(genre) || user.getHistory().containsKey(video)) {
+        // Check if any videos can have the given genre
+        if (genre == null) {
+            return "SearchRecommendation cannot be applied!";
+        }
+        // Append titles of unseen videos of genre, already ordered by rating and then name
+        boolean found = false;
+        searchMessage.append('[');
+        for (Video video : this.genreRatingIndex.getVideos(genre)) {
+            if (user.hasSeen(video)) {
                 continue;
             }
-            videosToSort.add(video);
+            if (found) {
+                searchMessage.append(", ");
+            }
+            searchMessage.append(video.getTitle());
+            found = true;
         }
         // Check if any eligible videos were found
-        if (videosToSort.isEmpty()) {
+        if (!found) {
             return "SearchRecommendation cannot be applied!";
         }
-        // Sort videos by rating and then name
-        videosToSort.sort(Comparator.comparingDouble(Video::getAverageRating)
-                                    .thenComparing(Video::getTitle));
-        // Append all video titles to message
-        searchMessage.append('[');
-        for (int i = 0; i < videosToSort.size() - 1; ++i) {
-            searchMessage.append(videosToSort.get(i).getTitle());
-            searchMessage.append(", ");
-        }
-        searchMessage.append(videosToSort.get(videosToSort.size() - 1).getTitle());
         searchMessage.append(']');
         return searchMessage.toString();
     }
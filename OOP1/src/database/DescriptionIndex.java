@@ -0,0 +1,107 @@
+package database;
+
+import entities.Actor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index from the words of actors' career descriptions to the actors using them
+ */
+public final class DescriptionIndex {
+    /**
+     * Characters a career description is split by to obtain its words
+     */
+    private static final Pattern DELIMITERS = Pattern.compile("[\\s'.,!?-]");
+    /**
+     * Indexed actors sorted by name
+     */
+    private final Actor[] actorsByName;
+    /**
+     * Map of each description word to the positions in name order of actors using it
+     */
+    private final Map<String, int[]> postings = new HashMap<>();
+
+    public DescriptionIndex(final Collection<Actor> actors) {
+        // Sort actors by name so that posting lists and results are in name order
+        this.actorsByName = actors.toArray(new Actor[0]);
+        Arrays.sort(this.actorsByName, Comparator.comparing(Actor::getName));
+        // Collect positions of actors for every distinct word in their description
+        Map<String, ArrayList<Integer>> positions = new HashMap<>();
+        for (int i = 0; i < this.actorsByName.length; ++i) {
+            String description = this.actorsByName[i].getCareerDescription().toLowerCase();
+            Set<String> words = new HashSet<>(Arrays.asList(DELIMITERS.split(description)));
+            for (String word : words) {
+                positions.computeIfAbsent(word, key -> new ArrayList<>()).add(i);
+            }
+        }
+        // Store positions as primitive arrays, already sorted since actors were visited in order
+        for (Map.Entry<String, ArrayList<Integer>> entry : positions.entrySet()) {
+            int[] posting = new int[entry.getValue().size()];
+            for (int i = 0; i < posting.length; ++i) {
+                posting[i] = entry.getValue().get(i);
+            }
+            this.postings.put(entry.getKey(), posting);
+        }
+    }
+
+    /**
+     * Find all actors whose career description contains all given words
+     * @param words words to look for, matched against the lower-cased description
+     * @return list of matching actors sorted by name
+     */
+    public ArrayList<Actor> search(final List<String> words) {
+        ArrayList<Actor> matching = new ArrayList<>();
+        // Without any word to look for all actors match
+        if (words.isEmpty()) {
+            matching.addAll(Arrays.asList(this.actorsByName));
+            return matching;
+        }
+        // Get posting lists for all words, any missing word means no actor matches
+        int[][] lists = new int[words.size()][];
+        for (int i = 0; i < lists.length; ++i) {
+            lists[i] = this.postings.get(words.get(i));
+            if (lists[i] == null) {
+                return matching;
+            }
+        }
+        // Intersect starting from the shortest list to keep the candidates few
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.length));
+        // Copy the shortest list since candidates are narrowed down in place
+        int[] candidates = lists[0].clone();
+        int numCandidates = candidates.length;
+        for (int i = 1; i < lists.length && numCandidates > 0; ++i) {
+            numCandidates = intersect(candidates, numCandidates, lists[i]);
+        }
+        // Resolve positions to actor objects, positions are in name order
+        for (int i = 0; i < numCandidates; ++i) {
+            matching.add(this.actorsByName[candidates[i]]);
+        }
+        return matching;
+    }
+
+    private static int intersect(final int[] candidates, final int numCandidates,
+                                 final int[] list) {
+        int kept = 0;
+        int j = 0;
+        // Merge the two sorted lists, moving positions found in both to the front of candidates
+        for (int i = 0; i < numCandidates && j < list.length; ++i) {
+            while (j < list.length && list[j] < candidates[i]) {
+                j++;
+            }
+            if (j < list.length && list[j] == candidates[i]) {
+                candidates[kept] = candidates[i];
+                kept++;
+            }
+        }
+        return kept;
+    }
+}
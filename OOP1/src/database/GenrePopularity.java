@@ -0,0 +1,118 @@
+package database;
+
+import entertainment.Genre;
+import entities.Video;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Number of views of each genre, kept up to date as videos are viewed, and the videos of
+ * each genre in database order
+ */
+public final class GenrePopularity {
+    /**
+     * Genres in declaration order, indexed by ordinal
+     */
+    private static final Genre[] GENRES = Genre.values();
+    /**
+     * Videos of each genre in database order, indexed by genre ordinal
+     */
+    private final List<List<Video>> videosByGenre = new ArrayList<>();
+    /**
+     * Total number of views of each genre, indexed by genre ordinal
+     */
+    private final int[] views = new int[GENRES.length];
+    /**
+     * Id of the first viewed video of each genre, indexed by genre ordinal
+     */
+    private final int[] firstVideo = new int[GENRES.length];
+    /**
+     * Position of each genre in the genres list of its first viewed video
+     */
+    private final int[] firstGenrePosition = new int[GENRES.length];
+    /**
+     * Viewed genres sorted by popularity, rebuilt only after views change; volatile since
+     * read-only queries running in parallel may rebuild it
+     */
+    private volatile List<Genre> ranking;
+
+    public GenrePopularity(final Collection<Video> videos) {
+        for (int i = 0; i < GENRES.length; ++i) {
+            this.videosByGenre.add(new ArrayList<>());
+        }
+        Arrays.fill(this.firstVideo, Integer.MAX_VALUE);
+        Arrays.fill(this.firstGenrePosition, Integer.MAX_VALUE);
+        // Index videos by genre and seed genre views from views videos already have
+        for (Video video : videos) {
+            for (Genre genre : video.getGenres()) {
+                List<Video> genreVideos = this.videosByGenre.get(genre.ordinal());
+                // Add video only once even if genre is given more than once
+                if (genreVideos.isEmpty() || genreVideos.get(genreVideos.size() - 1) != video) {
+                    genreVideos.add(video);
+                }
+            }
+            if (video.getNumViews() != 0) {
+                this.addViews(video, video.getNumViews());
+            }
+        }
+    }
+
+    /**
+     * Count views of a video towards all of its genres
+     * @param video viewed video
+     * @param numViews number of views to add
+     */
+    public void addViews(final Video video, final int numViews) {
+        int id = video.getId();
+        for (int i = 0; i < video.getGenres().size(); ++i) {
+            int genre = video.getGenres().get(i).ordinal();
+            this.views[genre] += numViews;
+            // Keep track of where genre was first met when going over viewed videos by id,
+            // which decides the order of genres with the same number of views
+            if (id < this.firstVideo[genre]
+                    || (id == this.firstVideo[genre] && i < this.firstGenrePosition[genre])) {
+                this.firstVideo[genre] = id;
+                this.firstGenrePosition[genre] = i;
+            }
+        }
+        this.ranking = null;
+    }
+
+    /**
+     * Get genres that have been viewed, most viewed first
+     * @return list of genres sorted by number of views in decreasing order and then by
+     * the order in which they are first met going over viewed videos
+     */
+    public List<Genre> getRanking() {
+        // Rebuild ranking if views have changed since it was last built
+        List<Genre> current = this.ranking;
+        if (current == null) {
+            ArrayList<Genre> viewed = new ArrayList<>();
+            for (Genre genre : GENRES) {
+                if (this.views[genre.ordinal()] != 0) {
+                    viewed.add(genre);
+                }
+            }
+            Comparator<Genre> byViews = (first, second) ->
+                    Integer.compare(this.views[second.ordinal()], this.views[first.ordinal()]);
+            viewed.sort(byViews.thenComparingInt(genre -> this.firstVideo[genre.ordinal()])
+                    .thenComparingInt(genre -> this.firstGenrePosition[genre.ordinal()]));
+            this.ranking = viewed;
+            current = viewed;
+        }
+        return current;
+    }
+
+    /**
+     * Get videos of a genre
+     * @param genre genre of videos
+     * @return list of videos of given genre in database order
+     */
+    public List<Video> getVideos(final Genre genre) {
+        return this.videosByGenre.get(genre.ordinal());
+    }
+}
@@ -0,0 +1,68 @@
+package database;
+
+import entertainment.Genre;
+import entities.Video;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Videos of each genre ordered by average rating and then title, unrated videos included; a
+ * video must be removed before its rating changes and added back after, since its position
+ * depends on it
+ */
+public final class GenreRatingIndex {
+    /**
+     * Order of videos within a genre, titles being unique in the database
+     */
+    private static final Comparator<Video> ORDER =
+            Comparator.comparingDouble(Video::getAverageRating).thenComparing(Video::getTitle);
+    /**
+     * Videos of each genre by rating and then title, indexed by genre ordinal
+     */
+    private final List<NavigableSet<Video>> videosByGenre = new ArrayList<>();
+
+    public GenreRatingIndex(final Collection<Video> videos) {
+        for (int i = 0; i < Genre.values().length; ++i) {
+            this.videosByGenre.add(new TreeSet<>(ORDER));
+        }
+        for (Video video : videos) {
+            this.add(video);
+        }
+    }
+
+    /**
+     * Remove a video from all of its genres before its rating changes
+     * @param video video about to be rated
+     */
+    public void remove(final Video video) {
+        for (Genre genre : video.getGenres()) {
+            this.videosByGenre.get(genre.ordinal()).remove(video);
+        }
+    }
+
+    /**
+     * Add a video to all of its genres after its rating has changed
+     * @param video rated video
+     */
+    public void add(final Video video) {
+        // Sets keep a video only once even if a genre is given more than once
+        for (Genre genre : video.getGenres()) {
+            this.videosByGenre.get(genre.ordinal()).add(video);
+        }
+    }
+
+    /**
+     * Get videos of a genre from the lowest to the highest rating, ties by title
+     * @param genre genre of videos
+     * @return ordered view of the genre's videos
+     */
+    public NavigableSet<Video> getVideos(final Genre genre) {
+        return Collections.unmodifiableNavigableSet(this.videosByGenre.get(genre.ordinal()));
+    }
+}
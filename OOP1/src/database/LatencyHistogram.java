@@ -0,0 +1,108 @@
+package database;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of durations in nanoseconds with a relative error of about 3%, splitting every
+ * power of two into equal buckets; values can be recorded from several threads at once
+ */
+public final class LatencyHistogram {
+    /**
+     * Number of bits of a value kept below its highest bit
+     */
+    private static final int SUB_BUCKET_BITS = 5;
+    /**
+     * Number of buckets every power of two is split into
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /**
+     * Number of bits of a non-negative long
+     */
+    private static final int VALUE_BITS = 63;
+    /**
+     * Number of occurrences of values in each bucket
+     */
+    private final AtomicLongArray counts =
+            new AtomicLongArray(SUB_BUCKETS * (VALUE_BITS - SUB_BUCKET_BITS + 1));
+    /**
+     * Number of values recorded
+     */
+    private final AtomicLong count = new AtomicLong();
+    /**
+     * Sum of values recorded
+     */
+    private final AtomicLong total = new AtomicLong();
+    /**
+     * Largest value recorded
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record a duration
+     * @param value duration in nanoseconds, negative values being counted as 0
+     */
+    public void record(final long value) {
+        long nanos = Math.max(value, 0);
+        this.counts.incrementAndGet(bucketOf(nanos));
+        this.count.incrementAndGet();
+        this.total.addAndGet(nanos);
+        this.max.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getTotal() {
+        return total.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Get the value below which a given fraction of recorded values fall
+     * @param fraction fraction of values, between 0 and 1
+     * @return middle of the bucket holding the value, at most the largest value recorded,
+     * or 0 if nothing was recorded
+     */
+    public long getPercentile(final double fraction) {
+        long numValues = this.count.get();
+        if (numValues == 0) {
+            return 0;
+        }
+        // Find the bucket holding the value of given rank
+        long rank = Math.max(1, (long) Math.ceil(fraction * numValues));
+        long seen = 0;
+        for (int bucket = 0; bucket < this.counts.length(); ++bucket) {
+            seen += this.counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(middleOf(bucket), this.max.get());
+            }
+        }
+        return this.max.get();
+    }
+
+    private static int bucketOf(final long value) {
+        // Small values have a bucket each
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        // Larger ones are bucketed by their highest bit and the bits just below it
+        int highestBit = VALUE_BITS - Long.numberOfLeadingZeros(value);
+        int shift = highestBit - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS * (shift + 1) + subBucket;
+    }
+
+    private static long middleOf(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = ((long) (SUB_BUCKETS + bucket % SUB_BUCKETS)) << shift;
+        return lowest + ((1L << shift) >> 1);
+    }
+}
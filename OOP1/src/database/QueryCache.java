@@ -0,0 +1,199 @@
+package database;
+
+import actor.ActorsAwards;
+import entertainment.Genre;
+import entities.User;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Bounded cache of query and recommendation results, evicting the least recently used
+ * result when full; each result is stored with the version of the database state it was
+ * computed from and is only returned while that version is current
+ */
+public final class QueryCache {
+    /**
+     * Initial capacity of the map of results
+     */
+    private static final int INITIAL_CAPACITY = 16;
+    /**
+     * Load factor of the map of results
+     */
+    private static final float LOAD_FACTOR = 0.75f;
+    /**
+     * Maximum number of results kept
+     */
+    private final int capacity;
+    /**
+     * Results by query parameters, in order of last use
+     */
+    private final Map<Key, Result> results;
+    /**
+     * Number of lookups that found a current result
+     */
+    private long hits;
+    /**
+     * Number of lookups that found no result or an outdated one
+     */
+    private long misses;
+
+    public QueryCache(final int capacity) {
+        this.capacity = capacity;
+        this.results = new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Result> eldest) {
+                return size() > QueryCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Get the result of a query if it has been computed for the current database state
+     * @param command compiled query or recommendation
+     * @param version current version of the database state the query depends on
+     * @return cached result or null if there is no current one
+     */
+    public synchronized String get(final Command command, final long version) {
+        Result result = this.results.get(new Key(command));
+        if (result != null && result.version == version) {
+            hits++;
+            return result.message;
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Store the result of a query, replacing any older result of the same query
+     * @param command compiled query or recommendation
+     * @param version version of the database state the result was computed from
+     * @param message result of query
+     */
+    public synchronized void put(final Command command, final long version,
+                                 final String message) {
+        this.results.put(new Key(command), new Result(version, message));
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Get the number of results currently kept
+     * @return number of results in cache
+     */
+    public synchronized int size() {
+        return this.results.size();
+    }
+
+    /**
+     * Result of a query and the version of the database state it was computed from
+     */
+    private static final class Result {
+        /**
+         * Version of database state
+         */
+        private final long version;
+        /**
+         * Result of query
+         */
+        private final String message;
+
+        Result(final long version, final String message) {
+            this.version = version;
+            this.message = message;
+        }
+    }
+
+    /**
+     * Parameters that decide the result of a query, with words and awards filters sorted
+     * and without duplicates since their order does not matter
+     */
+    private static final class Key {
+        /**
+         * Type of query or recommendation
+         */
+        private final CommandType type;
+        /**
+         * User receiving the recommendation
+         */
+        private final User user;
+        /**
+         * Number of results
+         */
+        private final int number;
+        /**
+         * Whether results are sorted in decreasing order
+         */
+        private final boolean descending;
+        /**
+         * Type of videos
+         */
+        private final String objectType;
+        /**
+         * Release year filter
+         */
+        private final Integer year;
+        /**
+         * Genre filter
+         */
+        private final Genre genre;
+        /**
+         * Words filter
+         */
+        private final List<String> words;
+        /**
+         * Awards filter
+         */
+        private final List<ActorsAwards> awards;
+
+        Key(final Command command) {
+            this.type = command.getType();
+            this.user = command.getUser();
+            this.number = command.getNumber();
+            this.descending = command.isDescending();
+            this.objectType = command.getObjectType();
+            this.year = command.getYear();
+            this.genre = command.getGenre();
+            this.words = command.getWords() == null ? null
+                    : new ArrayList<>(new TreeSet<>(command.getWords()));
+            this.awards = command.getAwards() == null ? null
+                    : new ArrayList<>(new TreeSet<>(command.getAwards()));
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return type == key.type
+                    && user == key.user
+                    && number == key.number
+                    && descending == key.descending
+                    && Objects.equals(objectType, key.objectType)
+                    && Objects.equals(year, key.year)
+                    && genre == key.genre
+                    && Objects.equals(words, key.words)
+                    && Objects.equals(awards, key.awards);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, user, number, descending, objectType, year, genre, words,
+                                awards);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package database;
+
+import entities.Video;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Rated videos ordered by average rating and then database order; a video must be removed
+ * before its rating changes and added back after, since its position depends on it
+ */
+public final class RatingIndex {
+    /**
+     * Videos with a rating other than 0, by rating and then id
+     */
+    private final NavigableSet<Video> videos = new TreeSet<>(
+            Comparator.comparingDouble(Video::getAverageRating).thenComparingInt(Video::getId));
+
+    /**
+     * Remove a video before its rating changes
+     * @param video video about to be rated
+     */
+    public void remove(final Video video) {
+        this.videos.remove(video);
+    }
+
+    /**
+     * Add a video back after its rating has changed, if it has a valid rating
+     * @param video rated video
+     */
+    public void add(final Video video) {
+        if (Double.compare(video.getAverageRating(), 0.0) != 0) {
+            this.videos.add(video);
+        }
+    }
+
+    /**
+     * Get rated videos from the lowest to the highest rating, ties in database order
+     * @return ordered view of rated videos
+     */
+    public NavigableSet<Video> ascending() {
+        return Collections.unmodifiableNavigableSet(this.videos);
+    }
+
+    /**
+     * Get rated videos from the highest to the lowest rating, ties in reverse database order
+     * @return ordered view of rated videos
+     */
+    public NavigableSet<Video> descending() {
+        return Collections.unmodifiableNavigableSet(this.videos.descendingSet());
+    }
+
+    /**
+     * Get the number of rated videos
+     * @return number of videos in index
+     */
+    public int size() {
+        return this.videos.size();
+    }
+}
@@ -0,0 +1,59 @@
+package database;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the first k items offered to it according to a given order, using a bounded heap
+ * @param <T> type of items to select from
+ */
+public final class TopKSelector<T> {
+    /**
+     * Maximum number of items to keep
+     */
+    private final int k;
+    /**
+     * Order in which items are selected and returned
+     */
+    private final Comparator<? super T> order;
+    /**
+     * Items kept so far, with the last one in the given order at the head
+     */
+    private final PriorityQueue<T> heap;
+
+    public TopKSelector(final int k, final Comparator<? super T> order) {
+        this.k = k;
+        this.order = order;
+        this.heap = new PriorityQueue<>(Collections.reverseOrder(order));
+    }
+
+    /**
+     * Offer an item for selection, keeping it only if it is among the first k seen so far
+     * @param item item to offer
+     */
+    public void offer(final T item) {
+        // Check if any item can be kept at all
+        if (this.k <= 0) {
+            return;
+        }
+        // Keep item while there is room or if it comes before the last item kept
+        if (this.heap.size() < this.k) {
+            this.heap.add(item);
+        } else if (this.order.compare(item, this.heap.peek()) < 0) {
+            this.heap.poll();
+            this.heap.add(item);
+        }
+    }
+
+    /**
+     * Get the items kept so far
+     * @return list of at most k items, sorted in the given order
+     */
+    public ArrayList<T> getResult() {
+        ArrayList<T> result = new ArrayList<>(this.heap);
+        result.sort(this.order);
+        return result;
+    }
+}
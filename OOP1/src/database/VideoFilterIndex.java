@@ -0,0 +1,155 @@
+package database;
+
+import common.Constants;
+import entertainment.Genre;
+import entities.Movie;
+import entities.Video;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Index of videos by type, release year and genre, for the filters of video queries
+ */
+public final class VideoFilterIndex {
+    /**
+     * Map of every type, year and genre to the videos matching them, in database order; a
+     * null genre maps to all videos of the type and year, so each video is kept once for
+     * its type and year and once for each of its genres
+     */
+    private final Map<FilterKey, List<Video>> buckets = new HashMap<>();
+    /**
+     * Release years of all videos
+     */
+    private final Set<Integer> years = new TreeSet<>();
+
+    public VideoFilterIndex(final Collection<Video> videos) {
+        for (Video video : videos) {
+            String type = video instanceof Movie ? Constants.MOVIES : Constants.SHOWS;
+            this.years.add(video.getYear());
+            // Add video to the bucket of its type and year and to those of its genres
+            List<Genre> genres = new ArrayList<>(new LinkedHashSet<>(video.getGenres()));
+            genres.add(null);
+            for (Genre genre : genres) {
+                this.buckets.computeIfAbsent(new FilterKey(type, video.getYear(), genre),
+                                             key -> new ArrayList<>()).add(video);
+            }
+        }
+    }
+
+    /**
+     * Get videos matching the filters of a query; missing filters are answered by joining
+     * the buckets of every type or year
+     * @param objectType type of videos, either movies or shows, any other value matches all
+     * @param year release year of videos or null for any year
+     * @param genre genre of videos or null for any genre
+     * @return list of matching videos, grouped by type and year, each group in database order
+     */
+    public List<Video> get(final String objectType, final Integer year, final Genre genre) {
+        List<String> types = Arrays.asList(Constants.MOVIES, Constants.SHOWS);
+        if (Constants.MOVIES.equals(objectType) || Constants.SHOWS.equals(objectType)) {
+            types = Collections.singletonList(objectType);
+        }
+        Collection<Integer> yearFilters = this.years;
+        if (year != null) {
+            yearFilters = Collections.singletonList(year);
+        }
+        // Collect matching buckets, a single one being returned as it is
+        List<List<Video>> matching = new ArrayList<>();
+        int size = 0;
+        for (String type : types) {
+            for (Integer yearFilter : yearFilters) {
+                List<Video> bucket = this.buckets.get(new FilterKey(type, yearFilter, genre));
+                if (bucket != null) {
+                    matching.add(bucket);
+                    size += bucket.size();
+                }
+            }
+        }
+        if (matching.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (matching.size() == 1) {
+            return matching.get(0);
+        }
+        List<Video> joined = new ArrayList<>(size);
+        for (List<Video> bucket : matching) {
+            joined.addAll(bucket);
+        }
+        return joined;
+    }
+
+    /**
+     * Check if a video matches the filters of a query
+     * @param video video to check
+     * @param objectType type of videos, either movies or shows, any other value matches all
+     * @param year release year of videos or null for any year
+     * @param genre genre of videos or null for any genre
+     * @return true if video is in the list get returns for the same filters
+     */
+    public static boolean matches(final Video video, final String objectType,
+                                  final Integer year, final Genre genre) {
+        if (Constants.MOVIES.equals(objectType) && !(video instanceof Movie)) {
+            return false;
+        }
+        if (Constants.SHOWS.equals(objectType) && video instanceof Movie) {
+            return false;
+        }
+        if (year != null && year != video.getYear()) {
+            return false;
+        }
+        return genre == null || video.getGenres().contains(genre);
+    }
+
+    /**
+     * Type, release year and genre of videos, the genre being null for any genre
+     */
+    private static final class FilterKey {
+        /**
+         * Type of videos
+         */
+        private final String type;
+        /**
+         * Release year of videos
+         */
+        private final Integer year;
+        /**
+         * Genre of videos
+         */
+        private final Genre genre;
+
+        FilterKey(final String type, final Integer year, final Genre genre) {
+            this.type = type;
+            this.year = year;
+            this.genre = genre;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            FilterKey filterKey = (FilterKey) o;
+            return Objects.equals(type, filterKey.type)
+                    && Objects.equals(year, filterKey.year)
+                    && genre == filterKey.genre;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, year, genre);
+        }
+    }
+}
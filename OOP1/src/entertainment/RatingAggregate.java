@@ -0,0 +1,56 @@
+package entertainment;
+
+/**
+ * Running sum and count of the ratings given to a movie or a season of a tv show
+ */
+public final class RatingAggregate {
+    /**
+     * Sum of all ratings given so far
+     */
+    private double sum;
+    /**
+     * Number of ratings given so far
+     */
+    private int count;
+
+    public double getSum() {
+        return sum;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Add a rating to the running sum and count
+     * @param rating rating to add
+     */
+    public void add(final double rating) {
+        // Ratings are summed in the order they are given, same as iterating over a list of them
+        this.sum += rating;
+        this.count++;
+    }
+
+    /**
+     * Replace the running sum and count with those of ratings given before, as saved in a
+     * snapshot
+     * @param ratingSum sum of ratings given
+     * @param ratingCount number of ratings given
+     */
+    public void restore(final double ratingSum, final int ratingCount) {
+        this.sum = ratingSum;
+        this.count = ratingCount;
+    }
+
+    /**
+     * Calculate the average of all ratings given so far
+     * @return average rating or 0 if no rating has been given
+     */
+    public double getAverage() {
+        // Check if any rating has been given
+        if (this.count == 0) {
+            return 0.0;
+        }
+        return this.sum / this.count;
+    }
+}
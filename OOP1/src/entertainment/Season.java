@@ -1,8 +1,5 @@
 package entertainment;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Information about a season of a tv show
  * <p>
@@ -18,14 +15,18 @@ public final class Season {
      */
     private int duration;
     /**
-     * List of ratings for each season
+     * Running sum and count of the ratings given to the season
      */
-    private List<Double> ratings;
+    private final RatingAggregate ratings;
 
     public Season(final int currentSeason, final int duration) {
         this.currentSeason = currentSeason;
         this.duration = duration;
-        this.ratings = new ArrayList<>();
+        this.ratings = new RatingAggregate();
+    }
+
+    public int getCurrentSeason() {
+        return currentSeason;
     }
 
     public int getDuration() {
@@ -36,14 +37,10 @@ public final class Season {
         this.duration = duration;
     }
 
-    public List<Double> getRatings() {
+    public RatingAggregate getRatings() {
         return ratings;
     }
 
-    public void setRatings(final List<Double> ratings) {
-        this.ratings = ratings;
-    }
-
     @Override
     public String toString() {
         return "Episode{"
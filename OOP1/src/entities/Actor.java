@@ -29,6 +29,14 @@ public final class Actor {
      * Total number of awards an actor has earned
      */
     private final int totalAwards;
+    /**
+     * Bitmask of the types of awards an actor has earned, one bit per award ordinal
+     */
+    private final int awardsMask;
+    /**
+     * Average rating of all videos an actor has starred in, updated when one of them is rated
+     */
+    private double filmographyAverageRating;
 
     public Actor(final String name, final String careerDescription,
                  final ArrayList<Video> filmography,
@@ -42,6 +50,12 @@ public final class Actor {
             sumAwards += awardsOfType;
         }
         this.totalAwards = sumAwards;
+        int mask = 0;
+        for (ActorsAwards award : this.awards.keySet()) {
+            mask |= 1 << award.ordinal();
+        }
+        this.awardsMask = mask;
+        this.updateFilmographyAverageRating();
     }
 
     public String getName() {
@@ -64,11 +78,19 @@ public final class Actor {
         return totalAwards;
     }
 
+    public int getAwardsMask() {
+        return awardsMask;
+    }
+
+    public double getFilmographyAverageRating() {
+        return filmographyAverageRating;
+    }
+
     /**
-     * Calculate the average rating of all videos an actor has starred in
-     * @return average rating of filmography
+     * Recalculate the average rating of all videos an actor has starred in, called by a video
+     * in the filmography whenever its average rating changes
      */
-    public Double getFilmographyAverageRating() {
+    void updateFilmographyAverageRating() {
         double ratingSum = 0.0;
         int ratingsNotZero = 0;
         // Iterate over video objects in filmography list
@@ -79,7 +101,7 @@ public final class Actor {
                 ratingsNotZero++;
             }
         }
-        // Return average of video averages
-        return ratingSum / ratingsNotZero;
+        // Store average of video averages
+        this.filmographyAverageRating = ratingSum / ratingsNotZero;
     }
 }
@@ -1,6 +1,7 @@
 package entities;
 
 import entertainment.Genre;
+import entertainment.RatingAggregate;
 
 import java.util.ArrayList;
 
@@ -13,21 +14,16 @@ public final class Movie extends Video {
      */
     private final int duration;
     /**
-     * Movie's list of ratings
+     * Movie's running sum and count of ratings
      */
-    private final ArrayList<Double> ratings;
-    /**
-     * Movie's average rating
-     */
-    private Double averageRating;
+    private final RatingAggregate ratings;
 
     public Movie(final String title, final int year,
                  final ArrayList<String> cast, final ArrayList<Genre> genres,
                  final int duration) {
         super(title, year, cast, genres);
         this.duration = duration;
-        this.ratings = new ArrayList<>();
-        this.averageRating = 0.0;
+        this.ratings = new RatingAggregate();
     }
 
     @Override
@@ -35,31 +31,19 @@ public final class Movie extends Video {
         return duration;
     }
 
-    public ArrayList<Double> getRatings() {
+    public RatingAggregate getRatings() {
         return ratings;
     }
 
     @Override
-    public Double getAverageRating() {
-        return averageRating;
+    public double getAverageRating() {
+        return ratings.getAverage();
     }
 
-    protected void addRating(final Double rating) {
-        // Add given rating to list of ratings and update average rating
+    protected void addRating(final double rating) {
+        // Add given rating to running sum and count, average is derived from them
         this.ratings.add(rating);
-        this.updateAverageRating();
-    }
-
-    private void updateAverageRating() {
-        // Check if any rating has been given
-        if (this.ratings.size() == 0) {
-            return;
-        }
-        // Iterate over ratings and calculate average rating
-        Double ratingSum = 0.0;
-        for (Double rating : this.ratings) {
-            ratingSum += rating;
-        }
-        this.averageRating = ratingSum / this.ratings.size();
+        // Let actors starring in movie know its average has changed
+        this.updateCastRatings();
     }
 }
@@ -1,10 +1,10 @@
 package entities;
 
 import entertainment.Genre;
+import entertainment.RatingAggregate;
 import entertainment.Season;
 
 import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Information specific to a tv show
@@ -21,11 +21,11 @@ public final class Show extends Video {
     /**
      * Show's list of average ratings for each season
      */
-    private final ArrayList<Double> seasonAverageRatings;
+    private final double[] seasonAverageRatings;
     /**
      * Show's overall average rating
      */
-    private Double averageRating;
+    private double averageRating;
     /**
      * Show's total duration
      */
@@ -37,10 +37,7 @@ public final class Show extends Video {
         super(title, year, cast, genres);
         this.numberOfSeasons = numberOfSeasons;
         this.seasons = seasons;
-        this.seasonAverageRatings = new ArrayList<>(numberOfSeasons);
-        for (int i = 0; i < numberOfSeasons; ++i) {
-            this.seasonAverageRatings.add(0.0);
-        }
+        this.seasonAverageRatings = new double[numberOfSeasons];
         this.averageRating = 0.0;
         int totalDuration = 0;
         for (Season season : this.seasons) {
@@ -57,12 +54,12 @@ public final class Show extends Video {
         return seasons;
     }
 
-    public ArrayList<Double> getSeasonAverageRatings() {
+    public double[] getSeasonAverageRatings() {
         return seasonAverageRatings;
     }
 
     @Override
-    public Double getAverageRating() {
+    public double getAverageRating() {
         return averageRating;
     }
 
@@ -71,17 +68,25 @@ public final class Show extends Video {
         return duration;
     }
 
-    protected void addSeasonRating(final int seasonNumber, final Double rating) {
+    /**
+     * Recalculate the average ratings of seasons and of the show from the ratings of its
+     * seasons, for a show created with seasons that were already rated
+     */
+    public void restoreAverageRatings() {
+        for (int i = 0; i < this.seasons.size(); ++i) {
+            this.updateSeasonAverageRatings(i);
+        }
+    }
+
+    protected void addSeasonRating(final int seasonNumber, final double rating) {
         // Get season from show based on season number
         Season season = this.seasons.get(seasonNumber);
         // Check if season exists
         if (season == null) {
             return;
         }
-        // Get list of season ratings and update it
-        List<Double> seasonRatings = season.getRatings();
-        seasonRatings.add(rating);
-        season.setRatings(seasonRatings);
+        // Add rating to season's running sum and count
+        season.getRatings().add(rating);
         // Update list of season average ratings
         this.updateSeasonAverageRatings(seasonNumber);
     }
@@ -89,33 +94,30 @@ public final class Show extends Video {
     private void updateSeasonAverageRatings(final int seasonNumber) {
         // Get season for show based on season number
         Season season = this.seasons.get(seasonNumber);
-        // Get list of ratings for season
-        List<Double> seasonRatings = season.getRatings();
+        // Get running sum and count of ratings for season
+        RatingAggregate seasonRatings = season.getRatings();
         // Check if season has been rated
-        if (seasonRatings.size() == 0) {
+        if (seasonRatings.getCount() == 0) {
             return;
         }
-        // Calculate average rating for season
-        Double ratingSum = 0.0;
-        for (Double rating : seasonRatings) {
-            ratingSum += rating;
-        }
         // Update average rating for given season in list of average seasons
-        Double seasonAverageRating = ratingSum / seasonRatings.size();
-        this.seasonAverageRatings.set(seasonNumber, seasonAverageRating);
+        this.seasonAverageRatings[seasonNumber] = seasonRatings.getAverage();
         this.updateAverageRating();
     }
 
     private void updateAverageRating() {
         // Check if seasons have average ratings
-        if (this.seasonAverageRatings.size() == 0) {
+        if (this.seasonAverageRatings.length == 0) {
             return;
         }
-        // Calculate the average rating for the entire show
-        Double ratingSum = 0.0;
-        for (Double rating : this.seasonAverageRatings) {
+        // Calculate the average rating for the entire show; summing the season averages in
+        // order keeps the result identical to the original, at a cost of one pass per season
+        double ratingSum = 0.0;
+        for (double rating : this.seasonAverageRatings) {
             ratingSum += rating;
         }
         this.averageRating = ratingSum / this.numberOfSeasons;
+        // Let actors starring in show know its average has changed
+        this.updateCastRatings();
     }
 }
@@ -18,9 +18,9 @@ public final class User {
      */
     private final String subscriptionType;
     /**
-     * User's list of viewed movies and tv shows alongside number of views
+     * Ids of movies and tv shows the user has viewed and number of views of each
      */
-    private final Map<Video, Integer> history;
+    private final ViewHistory history;
     /**
      * User's list of favorite movies and tv shows
      */
@@ -39,10 +39,26 @@ public final class User {
                 final ArrayList<Video> favorites) {
         this.username = username;
         this.subscriptionType = subscriptionType;
-        this.history = history;
         this.favorites = favorites;
         this.ratedMovies = new ArrayList<>();
         this.ratedShows = new ArrayList<>();
+        // Store initial history by video id and count initial views towards each video's
+        // total number of views
+        int[] ids = new int[history.size()];
+        int[] views = new int[history.size()];
+        int position = 0;
+        for (Map.Entry<Video, Integer> entry : history.entrySet()) {
+            ids[position] = entry.getKey().getId();
+            views[position] = entry.getValue();
+            position++;
+            entry.getKey().addViews(entry.getValue());
+            entry.getKey().addViewer();
+        }
+        this.history = new ViewHistory(ids, views);
+        // Count user's initial favorites towards each video's number of favorites
+        for (Video video : this.favorites) {
+            video.addFavorite();
+        }
     }
 
     public String getUsername() {
@@ -53,10 +69,32 @@ public final class User {
         return subscriptionType;
     }
 
-    public Map<Video, Integer> getHistory() {
+    public ViewHistory getHistory() {
         return history;
     }
 
+    public int getNumViewed() {
+        return this.history.size();
+    }
+
+    /**
+     * Check if the user has viewed a video (movie/tv show)
+     * @param video video to check
+     * @return true if video is in the user's history
+     */
+    public boolean hasSeen(final Video video) {
+        return this.history.contains(video.getId());
+    }
+
+    /**
+     * Get the number of times the user has viewed a video (movie/tv show)
+     * @param video video to check
+     * @return number of views or 0 if video is not in the user's history
+     */
+    public int getNumViews(final Video video) {
+        return this.history.getViews(video.getId());
+    }
+
     public ArrayList<Video> getFavorites() {
         return favorites;
     }
@@ -84,10 +122,11 @@ public final class User {
             return "error -> Video is non existent";
         }
         // Check if video has been viewed
-        if (this.history.containsKey(toFavorite)) {
+        if (this.hasSeen(toFavorite)) {
             // Check if video is not already in favorites
             if (!this.favorites.contains(toFavorite)) {
                 this.favorites.add(toFavorite);
+                toFavorite.addFavorite();
                 return "success -> " + toFavorite.getTitle() + " was added as favourite";
             } else {
                 return "error -> " + toFavorite.getTitle()
@@ -108,15 +147,36 @@ public final class User {
         if (toView == null) {
             return "error -> Video is non existent";
         }
-        // Check if video has not been viewed
-        if (this.history.containsKey(toView)) {
-            this.history.put(toView, this.history.get(toView) + 1);
-            return "success -> " + toView.getTitle() + " was viewed with total views of "
-                    + this.history.get(toView);
-        } else {
-            this.history.put(toView, 1);
-            return "success -> " + toView.getTitle() + " was viewed with total views of 1";
+        // Count view towards video's total number of views, and the user towards its viewers
+        // if it has not been viewed before
+        toView.addViews(1);
+        if (!this.hasSeen(toView)) {
+            toView.addViewer();
         }
+        // Add view to history, the video is added if it has not been viewed before
+        int totalViews = this.history.addViews(toView.getId(), 1);
+        return "success -> " + toView.getTitle() + " was viewed with total views of "
+                + totalViews;
+    }
+
+    /**
+     * Check if a rating for a movie would be accepted
+     * @param toRate movie to check
+     * @return true if movie exists, has been viewed and has not been rated yet
+     */
+    public boolean canRate(final Movie toRate) {
+        return toRate != null && this.hasSeen(toRate) && !this.ratedMovies.contains(toRate);
+    }
+
+    /**
+     * Check if a rating for a season of a show would be accepted
+     * @param toRate show to check
+     * @param seasonNumber number of season in show
+     * @return true if show exists, has been viewed and the season has not been rated yet
+     */
+    public boolean canRate(final Show toRate, final int seasonNumber) {
+        return toRate != null && this.hasSeen(toRate)
+                && !this.ratedShows.contains(toRate.getSeasons().get(seasonNumber - 1));
     }
 
     /**
@@ -125,13 +185,13 @@ public final class User {
      * @param rating rating user wants to add
      * @return error or success message
      */
-    public String rateVideo(final Movie toRate, final Double rating) {
+    public String rateVideo(final Movie toRate, final double rating) {
         // Check if given movie exists
         if (toRate == null) {
             return "error -> Movie is null";
         }
         // Check if movie has been viewed
-        if (this.history.containsKey(toRate)) {
+        if (this.hasSeen(toRate)) {
             // Check if video is not already rated
             if (!this.ratedMovies.contains(toRate)) {
                 this.ratedMovies.add(toRate);
@@ -153,13 +213,13 @@ public final class User {
      * @param rating rating user wants to add
      * @return error or success message
      */
-    public String rateVideo(final Show toRate, final int seasonNumber, final Double rating) {
+    public String rateVideo(final Show toRate, final int seasonNumber, final double rating) {
         // Check if given show exists
         if (toRate == null) {
             return "error -> Show is null";
         }
         // Check if show has been viewed
-        if (this.history.containsKey(toRate)) {
+        if (this.hasSeen(toRate)) {
             // Get season from show based on season number
             Season seasonToRate = toRate.getSeasons().get(seasonNumber - 1);
             // Check if season is not already rated
@@ -12,6 +12,10 @@ public abstract class Video {
      * Video's title
      */
     private final String title;
+    /**
+     * Video's dense integer id, its position in database order
+     */
+    private int id;
     /**
      * Video's release year
      */
@@ -24,6 +28,22 @@ public abstract class Video {
      * Video's list of defining genres
      */
     private final ArrayList<Genre> genres;
+    /**
+     * Video's list of actor objects starring, used to push rating changes to them
+     */
+    private final ArrayList<Actor> castActors;
+    /**
+     * Number of users that have the video in their favorites list
+     */
+    private int numFavorites;
+    /**
+     * Total number of views the video has from all users
+     */
+    private int numViews;
+    /**
+     * Number of users that have the video in their history, even with no views
+     */
+    private int numViewers;
 
     public Video(final String title, final int year,
                  final ArrayList<String> cast, final ArrayList<Genre> genres) {
@@ -31,12 +51,21 @@ public abstract class Video {
         this.year = year;
         this.cast = cast;
         this.genres = genres;
+        this.castActors = new ArrayList<>();
     }
 
     public final String getTitle() {
         return title;
     }
 
+    public final int getId() {
+        return id;
+    }
+
+    public final void setId(final int id) {
+        this.id = id;
+    }
+
     public final int getYear() {
         return year;
     }
@@ -49,6 +78,62 @@ public abstract class Video {
         return genres;
     }
 
+    public final ArrayList<Actor> getCastActors() {
+        return castActors;
+    }
+
+    public final int getNumFavorites() {
+        return numFavorites;
+    }
+
+    public final int getNumViews() {
+        return numViews;
+    }
+
+    public final int getNumViewers() {
+        return numViewers;
+    }
+
+    /**
+     * Add views of a user to the video's total number of views
+     * @param views number of views to add
+     */
+    final void addViews(final int views) {
+        this.numViews += views;
+    }
+
+    /**
+     * Count one more user that has the video in their history
+     */
+    final void addViewer() {
+        this.numViewers++;
+    }
+
+    /**
+     * Count one more user that has added the video to their favorites list
+     */
+    final void addFavorite() {
+        this.numFavorites++;
+    }
+
+    /**
+     * Add an actor object to the video's cast, so it is notified when the video is rated
+     * @param actor actor starring in video
+     */
+    public final void addCastActor(final Actor actor) {
+        this.castActors.add(actor);
+    }
+
+    /**
+     * Update the filmography average of all actors starring in video, to be called whenever
+     * the video's average rating changes
+     */
+    protected final void updateCastRatings() {
+        for (Actor actor : this.castActors) {
+            actor.updateFilmographyAverageRating();
+        }
+    }
+
     /**
      * Abstract method to allow getting the duration of a movie or show using video upcasting
      * @return duration of a video
@@ -59,5 +144,5 @@ public abstract class Video {
      * Abstract method to allow getting the average rating of a movie or show using video upcasting
      * @return average rating of a video
      */
-    public abstract Double getAverageRating();
+    public abstract double getAverageRating();
 }
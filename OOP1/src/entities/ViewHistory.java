@@ -0,0 +1,248 @@
+package entities;
+
+import java.util.Arrays;
+
+/**
+ * Ids of the videos a user has viewed and the number of views of each; the ids are kept as
+ * a sparse bitset holding only the 64-bit words that have a bit set, so that unseen videos
+ * can be scanned a word at a time without a bitset as long as the whole database
+ */
+public final class ViewHistory {
+    /**
+     * Number of bits to shift an id by to get the index of its word
+     */
+    private static final int WORD_SHIFT = 6;
+    /**
+     * Multiplier spreading ids over the count table
+     */
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+    /**
+     * Smallest capacity of the count table
+     */
+    private static final int MIN_CAPACITY = 2;
+    /**
+     * Sorted indexes of the words that have a bit set, only the first numWords are used
+     */
+    private int[] wordIndexes;
+    /**
+     * Bits of the words at the same position in wordIndexes
+     */
+    private long[] words;
+    /**
+     * Number of words that have a bit set
+     */
+    private int numWords;
+    /**
+     * Open addressing table of viewed ids, each stored as id + 1 so that 0 marks a free slot
+     */
+    private int[] keys;
+    /**
+     * Number of views of the id at the same slot in keys
+     */
+    private int[] counts;
+    /**
+     * Number of different videos viewed
+     */
+    private int size;
+
+    /**
+     * Create a history from videos already viewed, building the bitset in one pass
+     * @param ids distinct ids of viewed videos
+     * @param views number of views of each video, at the same position as its id
+     */
+    public ViewHistory(final int[] ids, final int[] views) {
+        this.keys = new int[tableCapacity(ids.length)];
+        this.counts = new int[this.keys.length];
+        for (int i = 0; i < ids.length; ++i) {
+            this.put(ids[i], views[i]);
+        }
+        // Sorted ids set bits word by word, so each word is created once
+        int[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        this.wordIndexes = new int[sorted.length];
+        this.words = new long[sorted.length];
+        for (int id : sorted) {
+            int wordIndex = id >>> WORD_SHIFT;
+            if (this.numWords == 0 || this.wordIndexes[this.numWords - 1] != wordIndex) {
+                this.wordIndexes[this.numWords] = wordIndex;
+                this.numWords++;
+            }
+            this.words[this.numWords - 1] |= 1L << id;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check if a video has been viewed
+     * @param id id of video
+     * @return true if video is in the history
+     */
+    public boolean contains(final int id) {
+        return this.keys[this.slot(id)] != 0;
+    }
+
+    /**
+     * Get the number of views of a video
+     * @param id id of video
+     * @return number of views or 0 if video is not in the history
+     */
+    public int getViews(final int id) {
+        return this.counts[this.slot(id)];
+    }
+
+    /**
+     * Add views of a video, adding the video to the history if it has not been viewed before
+     * @param id id of video
+     * @param views number of views to add
+     * @return total number of views of the video
+     */
+    public int addViews(final int id, final int views) {
+        int slot = this.slot(id);
+        if (this.keys[slot] == 0) {
+            // Grow table before it gets too full for probing to stay short
+            if (4 * (this.size + 1) > 3 * this.keys.length) {
+                this.rehash(2 * this.keys.length);
+                slot = this.slot(id);
+            }
+            this.keys[slot] = id + 1;
+            this.size++;
+            this.setBit(id);
+        }
+        this.counts[slot] += views;
+        return this.counts[slot];
+    }
+
+    /**
+     * Get the lowest viewed id starting from a given id
+     * @param from id to start from
+     * @return lowest viewed id not less than from or -1 if there is none
+     */
+    public int nextSetBit(final int from) {
+        int position = this.wordPosition(from >>> WORD_SHIFT);
+        if (position == this.numWords) {
+            return -1;
+        }
+        long bits = this.words[position];
+        if (this.wordIndexes[position] == from >>> WORD_SHIFT) {
+            bits &= -1L << from;
+        }
+        while (bits == 0) {
+            position++;
+            if (position == this.numWords) {
+                return -1;
+            }
+            bits = this.words[position];
+        }
+        return (this.wordIndexes[position] << WORD_SHIFT) + Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * Get the lowest id not viewed starting from a given id
+     * @param from id to start from
+     * @return lowest id not less than from that is not in the history
+     */
+    public int nextClearBit(final int from) {
+        int wordIndex = from >>> WORD_SHIFT;
+        int position = this.wordPosition(wordIndex);
+        long mask = -1L << from;
+        while (true) {
+            // Words that are not kept have no bit set
+            long unseen = -1L;
+            if (position < this.numWords && this.wordIndexes[position] == wordIndex) {
+                unseen = ~this.words[position];
+                position++;
+            }
+            unseen &= mask;
+            if (unseen != 0) {
+                return (wordIndex << WORD_SHIFT) + Long.numberOfTrailingZeros(unseen);
+            }
+            wordIndex++;
+            mask = -1L;
+        }
+    }
+
+    /**
+     * Get a word of the bitset, so that ids can be scanned 64 at a time
+     * @param wordIndex index of word, holding ids from 64 * wordIndex to 64 * wordIndex + 63
+     * @return bits of the viewed ids in word, the lowest bit being the lowest id
+     */
+    public long getWord(final int wordIndex) {
+        int position = this.wordPosition(wordIndex);
+        if (position < this.numWords && this.wordIndexes[position] == wordIndex) {
+            return this.words[position];
+        }
+        return 0;
+    }
+
+    private void setBit(final int id) {
+        int wordIndex = id >>> WORD_SHIFT;
+        int position = this.wordPosition(wordIndex);
+        if (position == this.numWords || this.wordIndexes[position] != wordIndex) {
+            // Grow bitset if full
+            if (this.numWords == this.wordIndexes.length) {
+                int capacity = Math.max(1, 2 * this.wordIndexes.length);
+                this.wordIndexes = Arrays.copyOf(this.wordIndexes, capacity);
+                this.words = Arrays.copyOf(this.words, capacity);
+            }
+            // Shift later words to make room for the new one
+            System.arraycopy(this.wordIndexes, position, this.wordIndexes, position + 1,
+                             this.numWords - position);
+            System.arraycopy(this.words, position, this.words, position + 1,
+                             this.numWords - position);
+            this.wordIndexes[position] = wordIndex;
+            this.words[position] = 0;
+            this.numWords++;
+        }
+        this.words[position] |= 1L << id;
+    }
+
+    private int wordPosition(final int wordIndex) {
+        // Position of word in wordIndexes or the position to insert it at
+        int position = Arrays.binarySearch(this.wordIndexes, 0, this.numWords, wordIndex);
+        return position < 0 ? -position - 1 : position;
+    }
+
+    private void put(final int id, final int views) {
+        int slot = this.slot(id);
+        if (this.keys[slot] == 0) {
+            this.keys[slot] = id + 1;
+            this.size++;
+        }
+        this.counts[slot] += views;
+    }
+
+    private int slot(final int id) {
+        // Probe slots from the hash of id until id or a free slot is found
+        int mask = this.keys.length - 1;
+        int slot = (id * HASH_MULTIPLIER) >>> Integer.numberOfLeadingZeros(mask) & mask;
+        while (this.keys[slot] != 0 && this.keys[slot] != id + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(final int capacity) {
+        int[] oldKeys = this.keys;
+        int[] oldCounts = this.counts;
+        this.keys = new int[capacity];
+        this.counts = new int[capacity];
+        this.size = 0;
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldKeys[i] != 0) {
+                this.put(oldKeys[i] - 1, oldCounts[i]);
+            }
+        }
+    }
+
+    private static int tableCapacity(final int numIds) {
+        // Smallest power of two keeping the table at most three quarters full
+        int capacity = MIN_CAPACITY;
+        while (3 * capacity < 4 * numIds) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+}
@@ -1,17 +1,26 @@
 package fileio;
 
+import actor.ActorsAwards;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import common.Constants;
 import entertainment.Season;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
 import utils.Utils;
 
-import java.io.FileReader;
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The class reads and parses the data from the tests
@@ -19,6 +28,14 @@ import java.util.List;
  * DO NOT MODIFY
  */
 public final class InputLoader {
+    /**
+     * Size of the buffer the input file is read through
+     */
+    private static final int BUFFER_SIZE = 65536;
+    /**
+     * Factory for streaming parsers, safe to share between loaders
+     */
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
     /**
      * The path to the input file
      */
@@ -33,139 +50,447 @@ public final class InputLoader {
     }
 
     /**
-     * The method reads the database
+     * The method reads the database, streaming over the input file token by token and
+     * building input objects directly, without an intermediate JSON tree
      * @return an Input object
      */
     public Input readData() {
-        JSONParser jsonParser = new JSONParser();
+        List<ActorInputData> actors = null;
+        List<UserInputData> users = null;
+        List<MovieInputData> movies = null;
+        List<SerialInputData> serials = null;
         List<ActionInputData> actions = null;
-        List<ActorInputData> actors = new ArrayList<>();
-        List<UserInputData> users = new ArrayList<>();
-        List<MovieInputData> movies = new ArrayList<>();
-        List<SerialInputData> serials = new ArrayList<>();
-
-        try {
-            // Parsing the contents of the JSON file
-            JSONObject jsonObject = (JSONObject) jsonParser
-                    .parse(new FileReader(inputPath));
-            JSONObject database = (JSONObject) jsonObject.get(Constants.DATABASE);
-            JSONArray jsonActors = (JSONArray)
-                    database.get(Constants.ACTORS);
-            JSONArray jsonUsers = (JSONArray)
-                    database.get(Constants.USERS);
-            JSONArray jsonMovies = (JSONArray)
-                    database.get(Constants.MOVIES);
-            JSONArray jsonSerial = (JSONArray)
-                    database.get(Constants.SHOWS);
-
-            if (jsonActors != null) {
-                for (Object jsonActor : jsonActors) {
-                    actors.add(new ActorInputData(
-                            (String) ((JSONObject) jsonActor).get(Constants.NAME),
-                            (String) ((JSONObject) jsonActor).get(Constants.DESCRIPTION),
-                            Utils.convertJSONArray((JSONArray) ((JSONObject) jsonActor)
-                                    .get(Constants.FILMOGRAPHY)),
-                            Utils.convertAwards((JSONArray) ((JSONObject) jsonActor)
-                                    .get(Constants.AWARDS))
-                    ));
-                }
-            } else {
-                System.out.println("NU EXISTA ACTORI");
-            }
-
-            if (jsonUsers != null) {
-                for (Object jsonUser : jsonUsers) {
-                    users.add(new UserInputData(
-                            (String) ((JSONObject) jsonUser).get(Constants.USERNAME),
-                            (String) ((JSONObject) jsonUser).get(Constants.SUBSCRIPTION),
-                            Utils.watchedMovie((JSONArray) ((JSONObject) jsonUser)
-                                    .get(Constants.HISTORY)),
-                            Utils.convertJSONArray((JSONArray) ((JSONObject) jsonUser)
-                                    .get(Constants.FAVORITE_MOVIES))
-                    ));
+        // Default query limit, known once the database has been read
+        int size = -1;
+        // Positions of queries without a number read before the database, if any
+        List<Integer> unlimited = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(Paths.get(inputPath),
+                                                    StandardOpenOption.READ);
+             InputStream stream = new BufferedInputStream(Channels.newInputStream(channel),
+                                                          BUFFER_SIZE);
+             JsonParser parser = JSON_FACTORY.createParser(stream)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if (Constants.DATABASE.equals(field) && isPresent(parser)) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String section = parser.getCurrentName();
+                        parser.nextToken();
+                        switch (section) {
+                            case Constants.ACTORS:
+                                actors = readActors(parser);
+                                break;
+                            case Constants.USERS:
+                                users = readUsers(parser);
+                                break;
+                            case Constants.MOVIES:
+                                movies = readMovies(parser);
+                                break;
+                            case Constants.SHOWS:
+                                serials = readSerials(parser);
+                                break;
+                            default:
+                                parser.skipChildren();
+                                break;
+                        }
+                    }
+                    size = defaultNumber(actors, users, movies, serials);
+                } else if (Constants.ACTIONS.equals(field)) {
+                    actions = readActions(parser, size, unlimited);
+                } else {
+                    parser.skipChildren();
                 }
-            } else {
-                System.out.println("NU EXISTA UTILIZATORI");
             }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
 
-            if (jsonSerial != null) {
-                for (Object jsonIterator : jsonSerial) {
+        if (actors == null) {
+            System.out.println("NU EXISTA ACTORI");
+        }
+        if (users == null) {
+            System.out.println("NU EXISTA UTILIZATORI");
+        }
+        if (serials == null) {
+            System.out.println("NU EXISTA SERIALE");
+        }
+        if (movies == null) {
+            System.out.println("NU EXISTA FILME");
+        }
 
-                    ArrayList<Season> seasons = new ArrayList<>();
+        if (actions != null) {
+            // Queries read before the database are given their limit now that it is known
+            size = defaultNumber(actors, users, movies, serials);
+            for (int position : unlimited) {
+                actions.set(position, withNumber(actions.get(position), size));
+            }
+        } else {
+            System.out.println("NU EXISTA COMENZI");
+        }
 
-                    if (((JSONObject) jsonIterator).get(Constants.SEASONS) != null) {
-                        for (Object iterator : (JSONArray) ((JSONObject) jsonIterator)
-                                .get(Constants.SEASONS)) {
-                            seasons.add(new Season(
-                                    ((Long) ((JSONObject) iterator).get(Constants.CURRENT_SEASON))
-                                            .intValue(),
-                                    ((Long) ((JSONObject) iterator).get(Constants.DURATION))
-                                            .intValue()
-                            ));
-                        }
-                    } else {
-                        seasons = null;
-                    }
+        return new Input(actors, users, actions, movies, serials);
+    }
 
-                    serials.add(new SerialInputData(
-                            (String) ((JSONObject) jsonIterator).get(Constants.NAME),
-                            Utils.convertJSONArray((JSONArray) ((JSONObject) jsonIterator)
-                                    .get(Constants.CAST)),
-                            Utils.convertJSONArray((JSONArray) ((JSONObject) jsonIterator)
-                                    .get(Constants.GENRES)),
-                            ((Long) ((JSONObject) jsonIterator).get(Constants.NUMBER_OF_SEASONS))
-                                    .intValue(),
-                            seasons,
-                            Integer.parseInt(((JSONObject) jsonIterator).get(Constants.YEAR)
-                                    .toString())
-                    ));
+    private static List<ActorInputData> readActors(final JsonParser parser) throws IOException {
+        if (!isPresent(parser)) {
+            return null;
+        }
+        List<ActorInputData> actors = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String name = null;
+            String description = null;
+            ArrayList<String> filmography = null;
+            Map<ActorsAwards, Integer> awards = new LinkedHashMap<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case Constants.NAME:
+                        name = readString(parser);
+                        break;
+                    case Constants.DESCRIPTION:
+                        description = readString(parser);
+                        break;
+                    case Constants.FILMOGRAPHY:
+                        filmography = readStringList(parser);
+                        break;
+                    case Constants.AWARDS:
+                        readAwards(parser, awards);
+                        break;
+                    default:
+                        parser.skipChildren();
+                        break;
                 }
-            } else {
-                System.out.println("NU EXISTA SERIALE");
             }
+            actors.add(new ActorInputData(name, description, filmography, awards));
+        }
+        return actors;
+    }
 
-            if (jsonMovies != null) {
-                for (Object jsonIterator : jsonMovies) {
-                    movies.add(new MovieInputData(
-                            (String) ((JSONObject) jsonIterator).get(Constants.NAME),
-                            Utils.convertJSONArray((JSONArray) ((JSONObject) jsonIterator)
-                                    .get(Constants.ACTORS)),
-                            Utils.convertJSONArray((JSONArray) ((JSONObject) jsonIterator)
-                                    .get(Constants.GENRES)),
-                            Integer.parseInt(((JSONObject) jsonIterator).get(Constants.YEAR)
-                                    .toString()),
-                            Integer.parseInt(((JSONObject) jsonIterator).get(Constants.DURATION)
-                                    .toString())
-                    ));
+    private static void readAwards(final JsonParser parser,
+                                   final Map<ActorsAwards, Integer> awards) throws IOException {
+        if (!isPresent(parser)) {
+            return;
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String type = null;
+            int number = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case Constants.AWARD_TYPE:
+                        type = readString(parser);
+                        break;
+                    case Constants.NUMBER_OF_AWARDS:
+                        number = readInt(parser);
+                        break;
+                    default:
+                        parser.skipChildren();
+                        break;
                 }
-            } else {
-                System.out.println("NU EXISTA FILME");
             }
+            awards.put(Utils.stringToAwards(type), number);
+        }
+    }
 
-            actions = readActions(jsonObject, Math.max(Math.max(movies.size()
-                    + serials.size(), users.size()), actors.size()));
+    private static List<UserInputData> readUsers(final JsonParser parser) throws IOException {
+        if (!isPresent(parser)) {
+            return null;
+        }
+        List<UserInputData> users = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String username = null;
+            String subscription = null;
+            Map<String, Integer> history = null;
+            ArrayList<String> favorites = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case Constants.USERNAME:
+                        username = readString(parser);
+                        break;
+                    case Constants.SUBSCRIPTION:
+                        subscription = readString(parser);
+                        break;
+                    case Constants.HISTORY:
+                        history = readHistory(parser);
+                        break;
+                    case Constants.FAVORITE_MOVIES:
+                        favorites = readStringList(parser);
+                        break;
+                    default:
+                        parser.skipChildren();
+                        break;
+                }
+            }
+            if (history == null) {
+                System.out.println("NU ESTE VIZIONAT NICIUN FILM");
+                history = new LinkedHashMap<>();
+            }
+            users.add(new UserInputData(username, subscription, history, favorites));
+        }
+        return users;
+    }
 
-            if (jsonActors == null) {
-                actors = null;
+    private static Map<String, Integer> readHistory(final JsonParser parser) throws IOException {
+        if (!isPresent(parser)) {
+            return null;
+        }
+        Map<String, Integer> history = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String title = null;
+            int views = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case Constants.NAME:
+                        title = readString(parser);
+                        break;
+                    case Constants.NUMBER_VIEWS:
+                        views = readInt(parser);
+                        break;
+                    default:
+                        parser.skipChildren();
+                        break;
+                }
             }
+            history.put(title, views);
+        }
+        return history;
+    }
 
-            if (jsonMovies == null) {
-                movies = null;
+    private static List<SerialInputData> readSerials(final JsonParser parser)
+            throws IOException {
+        if (!isPresent(parser)) {
+            return null;
+        }
+        List<SerialInputData> serials = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String title = null;
+            ArrayList<String> cast = null;
+            ArrayList<String> genres = null;
+            int numberOfSeasons = 0;
+            ArrayList<Season> seasons = null;
+            int year = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case Constants.NAME:
+                        title = readString(parser);
+                        break;
+                    case Constants.CAST:
+                        cast = readStringList(parser);
+                        break;
+                    case Constants.GENRES:
+                        genres = readStringList(parser);
+                        break;
+                    case Constants.NUMBER_OF_SEASONS:
+                        numberOfSeasons = readInt(parser);
+                        break;
+                    case Constants.SEASONS:
+                        seasons = readSeasons(parser);
+                        break;
+                    case Constants.YEAR:
+                        year = readInt(parser);
+                        break;
+                    default:
+                        parser.skipChildren();
+                        break;
+                }
             }
+            serials.add(new SerialInputData(title, cast, genres, numberOfSeasons, seasons, year));
+        }
+        return serials;
+    }
 
-            if (jsonSerial == null) {
-                serials = null;
+    private static ArrayList<Season> readSeasons(final JsonParser parser) throws IOException {
+        if (!isPresent(parser)) {
+            return null;
+        }
+        ArrayList<Season> seasons = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            int currentSeason = 0;
+            int duration = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case Constants.CURRENT_SEASON:
+                        currentSeason = readInt(parser);
+                        break;
+                    case Constants.DURATION:
+                        duration = readInt(parser);
+                        break;
+                    default:
+                        parser.skipChildren();
+                        break;
+                }
             }
+            seasons.add(new Season(currentSeason, duration));
+        }
+        return seasons;
+    }
 
-            if (jsonUsers == null) {
-                users = null;
+    private static List<MovieInputData> readMovies(final JsonParser parser) throws IOException {
+        if (!isPresent(parser)) {
+            return null;
+        }
+        List<MovieInputData> movies = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String title = null;
+            ArrayList<String> cast = null;
+            ArrayList<String> genres = null;
+            int year = 0;
+            int duration = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case Constants.NAME:
+                        title = readString(parser);
+                        break;
+                    case Constants.ACTORS:
+                        cast = readStringList(parser);
+                        break;
+                    case Constants.GENRES:
+                        genres = readStringList(parser);
+                        break;
+                    case Constants.YEAR:
+                        year = readInt(parser);
+                        break;
+                    case Constants.DURATION:
+                        duration = readInt(parser);
+                        break;
+                    default:
+                        parser.skipChildren();
+                        break;
+                }
             }
+            movies.add(new MovieInputData(title, cast, genres, year, duration));
+        }
+        return movies;
+    }
 
-        } catch (ParseException | IOException e) {
-            e.printStackTrace();
+    /**
+     * The method reads the actions from input file, building each action as soon as its
+     * fields have been read
+     * @param parser parser positioned at the start of the actions array
+     * @param size limit of queries without a number, or -1 if not known yet
+     * @param unlimited positions of queries given no limit because it was not known yet
+     * @return A list of actions
+     * @throws IOException in case of exceptions to reading
+     */
+    private static List<ActionInputData> readActions(final JsonParser parser, final int size,
+                                                     final List<Integer> unlimited)
+            throws IOException {
+        if (!isPresent(parser)) {
+            return null;
         }
+        List<ActionInputData> actions = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            RawAction action = new RawAction();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case Constants.ID:
+                        action.actionId = readInt(parser);
+                        break;
+                    case Constants.ACTION_TYPE:
+                        action.actionType = readString(parser);
+                        break;
+                    case Constants.TYPE:
+                        action.type = readString(parser);
+                        break;
+                    case Constants.USER:
+                        action.user = readString(parser);
+                        break;
+                    case Constants.USERNAME:
+                        action.username = readString(parser);
+                        break;
+                    case Constants.TITLE:
+                        action.title = readString(parser);
+                        break;
+                    case Constants.GENRE:
+                        action.genre = readString(parser);
+                        break;
+                    case Constants.OBJECT:
+                        action.objectType = readString(parser);
+                        break;
+                    case Constants.SORT:
+                        action.sortType = readString(parser);
+                        break;
+                    case Constants.CRITERIA:
+                        action.criteria = readString(parser);
+                        break;
+                    case Constants.NUMBER:
+                        action.number = readInteger(parser);
+                        break;
+                    case Constants.GRADE:
+                        action.grade = readGrade(parser);
+                        break;
+                    case Constants.SEASON:
+                        action.season = readInteger(parser);
+                        break;
+                    case Constants.FILTERS:
+                        readFilters(parser, action);
+                        break;
+                    default:
+                        parser.skipChildren();
+                        break;
+                }
+            }
+            if (size < 0 && Constants.QUERY.equals(action.actionType) && action.number == null) {
+                unlimited.add(actions.size());
+            }
+            ActionInputData actionData = action.toActionInputData(size);
+            if (actionData != null) {
+                actions.add(actionData);
+            }
+        }
+        return actions;
+    }
 
-        return new Input(actors, users, actions, movies, serials);
+    private static ActionInputData withNumber(final ActionInputData query, final int number) {
+        List<List<String>> filters = query.getFilters();
+        return new ActionInputData(query.getActionId(), query.getActionType(),
+                query.getObjectType(), filters.get(1).get(0), query.getSortType(),
+                query.getCriteria(), filters.get(0).get(0), number, filters.get(2),
+                filters.get(3));
+    }
+
+    private static void readFilters(final JsonParser parser,
+                                    final RawAction action) throws IOException {
+        if (!isPresent(parser)) {
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case Constants.GENRE:
+                    action.filterGenre = readString(parser);
+                    break;
+                case Constants.YEAR:
+                    action.filterYear = readString(parser);
+                    break;
+                case Constants.AWARDS:
+                    action.awards = readStringList(parser);
+                    break;
+                case Constants.WORDS:
+                    action.words = readStringList(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
     }
 
     /**
@@ -273,4 +598,166 @@ public final class InputLoader {
 
         return actions;
     }
+
+    private static boolean isPresent(final JsonParser parser) {
+        return parser.currentToken() != JsonToken.VALUE_NULL;
+    }
+
+    private static String readString(final JsonParser parser) throws IOException {
+        if (!isPresent(parser)) {
+            return null;
+        }
+        return parser.getValueAsString();
+    }
+
+    private static int readInt(final JsonParser parser) throws IOException {
+        // Numbers may also be given as strings
+        if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getIntValue();
+        }
+        return Integer.parseInt(parser.getText());
+    }
+
+    private static Integer readInteger(final JsonParser parser) throws IOException {
+        if (!isPresent(parser)) {
+            return null;
+        }
+        return readInt(parser);
+    }
+
+    private static Double readGrade(final JsonParser parser) throws IOException {
+        if (!isPresent(parser)) {
+            return null;
+        }
+        // Grades may be given as integers, decimals or strings
+        if (parser.currentToken().isNumeric()) {
+            return parser.getDoubleValue();
+        }
+        return Double.parseDouble(parser.getText());
+    }
+
+    private static ArrayList<String> readStringList(final JsonParser parser) throws IOException {
+        if (!isPresent(parser)) {
+            return null;
+        }
+        ArrayList<String> strings = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            strings.add(readString(parser));
+        }
+        return strings;
+    }
+
+    private static void expect(final JsonToken token, final JsonToken expected)
+            throws IOException {
+        if (token != expected) {
+            throw new IOException("Expected " + expected + " but found " + token);
+        }
+    }
+
+    private static int defaultNumber(final List<ActorInputData> actors,
+                                     final List<UserInputData> users,
+                                     final List<MovieInputData> movies,
+                                     final List<SerialInputData> serials) {
+        // Queries without a number are limited to the size of the largest collection
+        return Math.max(Math.max(sizeOf(movies) + sizeOf(serials), sizeOf(users)),
+                        sizeOf(actors));
+    }
+
+    private static int sizeOf(final List<?> list) {
+        if (list == null) {
+            return 0;
+        }
+        return list.size();
+    }
+
+    /**
+     * Fields of an action as read from the input file, in whatever order they are given,
+     * turned into an ActionInputData as soon as the action ends
+     */
+    private static final class RawAction {
+        /**
+         * Action id
+         */
+        private int actionId;
+        /**
+         * Type of action
+         */
+        private String actionType;
+        /**
+         * Type of command or recommendation
+         */
+        private String type;
+        /**
+         * Username of user performing a command
+         */
+        private String user;
+        /**
+         * Username of user receiving a recommendation
+         */
+        private String username;
+        /**
+         * Video title
+         */
+        private String title;
+        /**
+         * Video genre of a search recommendation
+         */
+        private String genre;
+        /**
+         * The type of object on which the query will be performed
+         */
+        private String objectType;
+        /**
+         * Sorting type: ascending or descending
+         */
+        private String sortType;
+        /**
+         * The criterion according to which the sorting will be performed
+         */
+        private String criteria;
+        /**
+         * Query limit, null if not given
+         */
+        private Integer number;
+        /**
+         * Grade for rating, null if not given
+         */
+        private Double grade;
+        /**
+         * Season number, null if not given
+         */
+        private Integer season;
+        /**
+         * Genre filter
+         */
+        private String filterGenre;
+        /**
+         * Year filter
+         */
+        private String filterYear;
+        /**
+         * Awards filter
+         */
+        private List<String> awards;
+        /**
+         * Words filter
+         */
+        private List<String> words;
+
+        private ActionInputData toActionInputData(final int size) {
+            if (actionType == null) {
+                return null;
+            }
+            return switch (actionType) {
+                case Constants.COMMAND -> new ActionInputData(actionId, actionType, type, user,
+                        title, grade == null ? 0 : grade, season == null ? 0 : season);
+                case Constants.QUERY -> new ActionInputData(actionId, actionType, objectType,
+                        filterGenre, sortType, criteria, filterYear,
+                        number == null ? size : number, words, awards);
+                case Constants.RECOMMENDATION -> new ActionInputData(actionId, actionType, type,
+                        username, genre);
+                default -> null;
+            };
+        }
+    }
 }
@@ -0,0 +1,143 @@
+package fileio;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads values written by a SnapshotWriter by mapping the snapshot file into memory, a
+ * window at a time so that files larger than a single mapping can be read
+ */
+public final class SnapshotReader implements Closeable {
+    /**
+     * Largest number of bytes of the file mapped at once
+     */
+    private static final int WINDOW_SIZE = 1073741824;
+    /**
+     * The file values are read from
+     */
+    private final FileChannel channel;
+    /**
+     * Size of the file in bytes
+     */
+    private final long size;
+    /**
+     * Position in the file of the first byte of the current window
+     */
+    private long windowStart;
+    /**
+     * Currently mapped part of the file
+     */
+    private MappedByteBuffer window;
+
+    public SnapshotReader(final String path) throws IOException {
+        this.channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+        this.size = this.channel.size();
+        this.map(0);
+    }
+
+    /**
+     * Read a single byte
+     * @return byte read
+     * @throws IOException in case of exceptions to reading or if the file ends
+     */
+    public byte readByte() throws IOException {
+        this.ensure(Byte.BYTES);
+        return this.window.get();
+    }
+
+    /**
+     * Read an int
+     * @return int read
+     * @throws IOException in case of exceptions to reading or if the file ends
+     */
+    public int readInt() throws IOException {
+        this.ensure(Integer.BYTES);
+        return this.window.getInt();
+    }
+
+    /**
+     * Read a double
+     * @return double read
+     * @throws IOException in case of exceptions to reading or if the file ends
+     */
+    public double readDouble() throws IOException {
+        this.ensure(Double.BYTES);
+        return this.window.getDouble();
+    }
+
+    /**
+     * Read a number of elements that follow, each taking at least one byte
+     * @return number of elements read
+     * @throws IOException in case of exceptions to reading, if the file ends or if the
+     *         elements cannot fit in the rest of the file
+     */
+    public int readCount() throws IOException {
+        int count = this.readInt();
+        if (count < 0 || count > this.remaining()) {
+            throw new IOException("Invalid count " + count);
+        }
+        return count;
+    }
+
+    /**
+     * Read a string written as its length in UTF-8 bytes followed by the bytes
+     * @return string read, may be null
+     * @throws IOException in case of exceptions to reading or if the file ends
+     */
+    public String readString() throws IOException {
+        int length = this.readInt();
+        if (length == SnapshotWriter.NULL_LENGTH) {
+            return null;
+        }
+        if (length < 0 || length > this.remaining()) {
+            throw new IOException("Invalid string length " + length);
+        }
+        // Strings crossing the end of the window are read a window at a time
+        byte[] bytes = new byte[length];
+        int read = 0;
+        while (read < length) {
+            this.ensure(1);
+            int count = Math.min(this.window.remaining(), length - read);
+            this.window.get(bytes, read, count);
+            read += count;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private long remaining() {
+        return this.size - this.windowStart - this.window.position();
+    }
+
+    private void ensure(final int numBytes) throws IOException {
+        if (this.window.remaining() >= numBytes) {
+            return;
+        }
+        // Map a new window starting at the first byte not yet read
+        long position = this.windowStart + this.window.position();
+        if (position + numBytes > this.size) {
+            throw new EOFException("Snapshot ends unexpectedly");
+        }
+        this.map(position);
+    }
+
+    private void map(final long position) throws IOException {
+        long length = Math.min(WINDOW_SIZE, this.size - position);
+        this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        this.windowStart = position;
+    }
+
+    /**
+     * Close the file; mapped windows stay readable until they are garbage collected
+     * @throws IOException in case of exceptions to closing
+     */
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
@@ -0,0 +1,116 @@
+package fileio;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes values to a binary snapshot file through a buffer, to be read back by a
+ * SnapshotReader in the same order
+ */
+public final class SnapshotWriter implements Closeable {
+    /**
+     * Size of the buffer values are gathered in before being written to the file
+     */
+    private static final int BUFFER_SIZE = 1048576;
+    /**
+     * Length written in place of a string that is null
+     */
+    static final int NULL_LENGTH = -1;
+    /**
+     * The file where values are written
+     */
+    private final FileChannel channel;
+    /**
+     * Values not yet written to the file
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    public SnapshotWriter(final String path) throws IOException {
+        this.channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Write a single byte
+     * @param value byte to write
+     * @throws IOException in case of exceptions to writing
+     */
+    public void writeByte(final byte value) throws IOException {
+        this.ensure(Byte.BYTES);
+        this.buffer.put(value);
+    }
+
+    /**
+     * Write an int
+     * @param value int to write
+     * @throws IOException in case of exceptions to writing
+     */
+    public void writeInt(final int value) throws IOException {
+        this.ensure(Integer.BYTES);
+        this.buffer.putInt(value);
+    }
+
+    /**
+     * Write a double, keeping all of its bits
+     * @param value double to write
+     * @throws IOException in case of exceptions to writing
+     */
+    public void writeDouble(final double value) throws IOException {
+        this.ensure(Double.BYTES);
+        this.buffer.putDouble(value);
+    }
+
+    /**
+     * Write a string as its length in UTF-8 bytes followed by the bytes
+     * @param value string to write, may be null
+     * @throws IOException in case of exceptions to writing
+     */
+    public void writeString(final String value) throws IOException {
+        if (value == null) {
+            this.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        this.writeInt(bytes.length);
+        // Strings longer than the buffer are written a buffer at a time
+        int written = 0;
+        while (written < bytes.length) {
+            this.ensure(1);
+            int length = Math.min(this.buffer.remaining(), bytes.length - written);
+            this.buffer.put(bytes, written, length);
+            written += length;
+        }
+    }
+
+    private void ensure(final int numBytes) throws IOException {
+        if (this.buffer.remaining() < numBytes) {
+            this.flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    /**
+     * Write values left in the buffer and close the file
+     * @throws IOException in case of exceptions to writing
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            this.flush();
+        } finally {
+            this.channel.close();
+        }
+    }
+}
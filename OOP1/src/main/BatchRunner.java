@@ -0,0 +1,70 @@
+package main;
+
+import database.Database;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Processes many input files at once on a bounded pool of threads, each file getting its own
+ * database; the same pool runs the read-only actions of every file in parallel
+ */
+public final class BatchRunner {
+    /**
+     * Pool files and their read-only actions are processed on
+     */
+    private final ForkJoinPool pool;
+
+    public BatchRunner(final int numThreads) {
+        this.pool = new ForkJoinPool(numThreads);
+    }
+
+    /**
+     * Processes input files and writes the output of each to the file at the same position
+     * @param inputPaths paths of input files
+     * @param outputPaths paths of output files
+     * @throws IOException in case of exceptions to reading / writing any of the files
+     */
+    public void run(final List<String> inputPaths,
+                    final List<String> outputPaths) throws IOException {
+        // Start processing all files, each on a database of its own
+        List<ForkJoinTask<Void>> tasks = new ArrayList<>(inputPaths.size());
+        for (int i = 0; i < inputPaths.size(); ++i) {
+            String inputPath = inputPaths.get(i);
+            String outputPath = outputPaths.get(i);
+            tasks.add(this.pool.submit(() -> {
+                Main.action(inputPath, outputPath, new Database(), this.pool);
+                return null;
+            }));
+        }
+        // Wait for all files, reporting the first failure in order of files
+        for (ForkJoinTask<Void> task : tasks) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while processing files");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IOException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Stops the threads of the pool once all submitted files are processed
+     */
+    public void shutdown() {
+        this.pool.shutdown();
+    }
+}
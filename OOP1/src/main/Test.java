@@ -1,6 +1,7 @@
 package main;
 
 import common.Constants;
+import database.ActionStats;
 
 import java.io.File;
 import java.io.IOException;
@@ -33,6 +34,11 @@ public final class Test {
             for (File file : inputDir) {
                 if (file.getName().equalsIgnoreCase(fileName)) {
                     Main.action(file.getAbsolutePath(), Constants.OUT_FILE);
+                    // Write stats of actions performed if they were recorded
+                    ActionStats stats = ActionStats.getInstance();
+                    if (stats != null) {
+                        stats.dump();
+                    }
                     break;
                 }
             }